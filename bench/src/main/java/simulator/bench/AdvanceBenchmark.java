@@ -0,0 +1,73 @@
+package simulator.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.json.JSONObject;
+
+import simulator.model.Simulator;
+
+/**
+ * Simulator.advance. Every iteration builds the simulator again and times the
+ * first {@value #STEPS} steps of the scenario, so all iterations measure the
+ * same population.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 5, batchSize = AdvanceBenchmark.STEPS)
+@Measurement(iterations = 10, batchSize = AdvanceBenchmark.STEPS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AdvanceBenchmark {
+	// steps timed per iteration, 3 seconds of simulation with the default dt
+	public static final int STEPS = 100;
+
+	@Param({ "ex1", "ex2", "ex3", "ex4", "ex5" })
+	public String scenario;
+
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	// 0 is the classic sequential update, 1 or more the buffered one, see
+	// Simulator.setParallelism
+	@Param({ "0", "1", "2", "4" })
+	public int threads;
+
+	@Param({ "0.03" })
+	public double dt;
+
+	private JSONObject spec;
+	private Simulator sim;
+
+	@Setup(Level.Trial)
+	public void loadScenario() {
+		spec = Scenarios.load(scenario, scale);
+	}
+
+	@Setup(Level.Iteration)
+	public void buildSimulator() {
+		sim = Scenarios.newLoadedSimulator(spec);
+		sim.setParallelism(threads);
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeSimulator() {
+		sim.close();
+	}
+
+	@Benchmark
+	public double advance() {
+		sim.advance(dt);
+		return sim.getSimulationTime();
+	}
+}
@@ -0,0 +1,47 @@
+package simulator.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import simulator.model.Simulator;
+
+/**
+ * Simulator.asJSON, building the tree and turning it into text as the batch
+ * mode does with the initial and final states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsJSONBenchmark {
+	@Param({ "ex1", "ex2" })
+	public String scenario;
+
+	@Param({ "1", "10", "100" })
+	public int scale;
+
+	private Simulator sim;
+
+	@Setup
+	public void setup() {
+		sim = Scenarios.newLoadedSimulator(Scenarios.load(scenario, scale));
+	}
+
+	@Benchmark
+	public JSONObject asJSON() {
+		return sim.asJSON();
+	}
+
+	@Benchmark
+	public String asJSONText() {
+		return sim.asJSON().toString();
+	}
+}
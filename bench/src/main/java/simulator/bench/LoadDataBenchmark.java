@@ -0,0 +1,45 @@
+package simulator.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import simulator.control.Controller;
+import simulator.model.Simulator;
+
+/**
+ * Controller.loadData on an empty simulator: region specs plus the creation
+ * and registration of every animal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoadDataBenchmark {
+	@Param({ "ex1", "ex2", "ex3", "ex4", "ex5" })
+	public String scenario;
+
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	private JSONObject spec;
+
+	@Setup
+	public void setup() {
+		spec = Scenarios.load(scenario, scale);
+	}
+
+	@Benchmark
+	public Simulator loadData() {
+		Simulator sim = Scenarios.newSimulator(spec);
+		new Controller(sim).loadData(spec);
+		return sim;
+	}
+}
@@ -0,0 +1,54 @@
+package simulator.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import simulator.model.Animal;
+import simulator.model.AnimalMapView;
+import simulator.model.Diet;
+import simulator.model.Simulator;
+
+/**
+ * RegionManager.getAnimalsInRange, one query per animal of the population, as
+ * in a step where every wolf looks for a prey.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RangeQueryBenchmark {
+	@Param({ "ex1", "ex4" })
+	public String scenario;
+
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	private AnimalMapView map;
+	private Animal[] animals;
+	private final Predicate<Animal> herbivores = a -> a.get_diet() == Diet.HERBIVORE;
+
+	@Setup
+	public void setup() {
+		Simulator sim = Scenarios.newLoadedSimulator(Scenarios.load(scenario, scale));
+		map = (AnimalMapView) sim.getMapInfo();
+		animals = sim.getAnimals().toArray(new Animal[0]);
+	}
+
+	@Benchmark
+	public void getAnimalsInRange(Blackhole bh) {
+		for (Animal a : animals) {
+			List<Animal> inRange = map.getAnimalsInRange(a, herbivores);
+			bh.consume(inRange);
+		}
+	}
+}
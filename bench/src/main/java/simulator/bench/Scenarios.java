@@ -0,0 +1,103 @@
+package simulator.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import simulator.control.Controller;
+import simulator.factories.Builder;
+import simulator.factories.BuilderBasedFactory;
+import simulator.factories.DefaultRegionBuilder;
+import simulator.factories.DynamicSupplyRegionBuilder;
+import simulator.factories.Factory;
+import simulator.factories.SelectClosestBuilder;
+import simulator.factories.SelectFirstBuilder;
+import simulator.factories.SelectYoungestBuilder;
+import simulator.factories.SheepBuilder;
+import simulator.factories.WolfBuilder;
+import simulator.misc.Utils;
+import simulator.model.Animal;
+import simulator.model.Region;
+import simulator.model.SelectionStrategy;
+import simulator.model.Simulator;
+
+/**
+ * Loads the example scenarios used by the benchmarks, optionally multiplying
+ * the number of animals of every spec.
+ */
+public final class Scenarios {
+	// Folder with the ex*.json files, can be changed with -Dsimulator.examples=...
+	public static final String EXAMPLES_PROPERTY = "simulator.examples";
+	public static final long SEED = 2147483647L;
+
+	public static final Factory<SelectionStrategy> selectionStrategyFactory;
+	public static final Factory<Animal> animalFactory;
+	public static final Factory<Region> regionFactory;
+
+	static {
+		List<Builder<SelectionStrategy>> selectionStrategyBuilders = new ArrayList<>();
+		selectionStrategyBuilders.add(new SelectFirstBuilder());
+		selectionStrategyBuilders.add(new SelectClosestBuilder());
+		selectionStrategyBuilders.add(new SelectYoungestBuilder());
+		selectionStrategyFactory = new BuilderBasedFactory<>(selectionStrategyBuilders);
+
+		List<Builder<Animal>> animalBuilders = new ArrayList<>();
+		animalBuilders.add(new SheepBuilder(selectionStrategyFactory));
+		animalBuilders.add(new WolfBuilder(selectionStrategyFactory));
+		animalFactory = new BuilderBasedFactory<>(animalBuilders);
+
+		List<Builder<Region>> regionBuilders = new ArrayList<>();
+		regionBuilders.add(new DefaultRegionBuilder());
+		regionBuilders.add(new DynamicSupplyRegionBuilder());
+		regionFactory = new BuilderBasedFactory<>(regionBuilders);
+	}
+
+	private Scenarios() {
+	}
+
+	// the example called name (ex1 ... ex5) with the amount of every animal spec
+	// multiplied by scale
+	public static JSONObject load(String name, int scale) {
+		File f = new File(examplesDir(), name + ".json");
+		try (InputStream in = new FileInputStream(f)) {
+			JSONObject scenario = new JSONObject(new JSONTokener(in));
+			JSONArray animals = scenario.getJSONArray("animals");
+			for (int i = 0; i < animals.length(); i++) {
+				JSONObject a = animals.getJSONObject(i);
+				a.put("amount", a.getInt("amount") * scale);
+			}
+			return scenario;
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read scenario " + f, e);
+		}
+	}
+
+	public static Simulator newSimulator(JSONObject scenario) {
+		return new Simulator(scenario.getInt("cols"), scenario.getInt("rows"), scenario.getInt("width"),
+				scenario.getInt("height"), animalFactory, regionFactory);
+	}
+
+	// a simulator with the scenario already loaded, always built from the same seed
+	public static Simulator newLoadedSimulator(JSONObject scenario) {
+		Utils.setSeed(SEED);
+		Simulator sim = newSimulator(scenario);
+		new Controller(sim).loadData(scenario);
+		return sim;
+	}
+
+	private static File examplesDir() {
+		String dir = System.getProperty(EXAMPLES_PROPERTY);
+		if (dir != null)
+			return new File(dir);
+		// run from the repository root or from the bench folder
+		File f = new File("resources/examples");
+		return f.isDirectory() ? f : new File("../resources/examples");
+	}
+}
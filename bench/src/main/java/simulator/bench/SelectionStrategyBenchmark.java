@@ -0,0 +1,63 @@
+package simulator.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import simulator.model.Animal;
+import simulator.model.AnimalMapView;
+import simulator.model.SelectionStrategy;
+import simulator.model.Simulator;
+
+/**
+ * The SelectionStrategy implementations over the animals every animal sees.
+ * The candidate lists are computed once, so only the selection is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SelectionStrategyBenchmark {
+	@Param({ "first", "closest", "youngest" })
+	public String strategy;
+
+	@Param({ "ex1" })
+	public String scenario;
+
+	@Param({ "1", "10", "100" })
+	public int scale;
+
+	private SelectionStrategy selection;
+	private Animal[] animals;
+	private List<Animal>[] candidates;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() {
+		selection = Scenarios.selectionStrategyFactory
+				.createInstance(new JSONObject().put("type", strategy).put("data", new JSONObject()));
+		Simulator sim = Scenarios.newLoadedSimulator(Scenarios.load(scenario, scale));
+		AnimalMapView map = (AnimalMapView) sim.getMapInfo();
+		animals = sim.getAnimals().toArray(new Animal[0]);
+		candidates = new List[animals.length];
+		for (int i = 0; i < animals.length; i++) {
+			Animal a = animals[i];
+			candidates[i] = map.getAnimalsInRange(a, b -> b != a);
+		}
+	}
+
+	@Benchmark
+	public void select(Blackhole bh) {
+		for (int i = 0; i < animals.length; i++)
+			bh.consume(selection.select(animals[i], candidates[i]));
+	}
+}
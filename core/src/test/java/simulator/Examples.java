@@ -0,0 +1,91 @@
+package simulator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import simulator.control.Controller;
+import simulator.factories.Builder;
+import simulator.factories.BuilderBasedFactory;
+import simulator.factories.DefaultRegionBuilder;
+import simulator.factories.DynamicSupplyRegionBuilder;
+import simulator.factories.Factory;
+import simulator.factories.SelectClosestBuilder;
+import simulator.factories.SelectFirstBuilder;
+import simulator.factories.SelectYoungestBuilder;
+import simulator.factories.SheepBuilder;
+import simulator.factories.WolfBuilder;
+import simulator.misc.Utils;
+import simulator.model.Animal;
+import simulator.model.Region;
+import simulator.model.SelectionStrategy;
+import simulator.model.Simulator;
+
+/**
+ * The factories of the launcher and the example scenarios, for the tests.
+ */
+public final class Examples {
+	// Folder with the ex*.json files, set by the build
+	public static final String EXAMPLES_PROPERTY = "simulator.examples";
+	// the seed of the launcher
+	public static final long SEED = 2147483647L;
+
+	public static final Factory<Animal> animalFactory;
+	public static final Factory<Region> regionFactory;
+
+	static {
+		List<Builder<SelectionStrategy>> selectionStrategyBuilders = new ArrayList<>();
+		selectionStrategyBuilders.add(new SelectFirstBuilder());
+		selectionStrategyBuilders.add(new SelectClosestBuilder());
+		selectionStrategyBuilders.add(new SelectYoungestBuilder());
+		Factory<SelectionStrategy> selectionStrategyFactory = new BuilderBasedFactory<>(selectionStrategyBuilders);
+
+		List<Builder<Animal>> animalBuilders = new ArrayList<>();
+		animalBuilders.add(new SheepBuilder(selectionStrategyFactory));
+		animalBuilders.add(new WolfBuilder(selectionStrategyFactory));
+		animalFactory = new BuilderBasedFactory<>(animalBuilders);
+
+		List<Builder<Region>> regionBuilders = new ArrayList<>();
+		regionBuilders.add(new DefaultRegionBuilder());
+		regionBuilders.add(new DynamicSupplyRegionBuilder());
+		regionFactory = new BuilderBasedFactory<>(regionBuilders);
+	}
+
+	private Examples() {
+	}
+
+	public static File file(String name) {
+		String dir = System.getProperty(EXAMPLES_PROPERTY, "../resources/examples");
+		return new File(dir, name + ".json");
+	}
+
+	// the example called name, ex1 ... ex5
+	public static JSONObject load(String name) {
+		File f = file(name);
+		try (InputStream in = new FileInputStream(f)) {
+			return new JSONObject(new JSONTokener(in));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read scenario " + f, e);
+		}
+	}
+
+	public static Simulator newSimulator(JSONObject scenario) {
+		return new Simulator(scenario.getInt("cols"), scenario.getInt("rows"), scenario.getInt("width"),
+				scenario.getInt("height"), animalFactory, regionFactory);
+	}
+
+	// the example loaded as the launcher does, from the seed of the launcher
+	public static Simulator newLoadedSimulator(String name) {
+		JSONObject scenario = load(name);
+		Utils.setSeed(SEED);
+		Simulator sim = newSimulator(scenario);
+		new Controller(sim).loadData(scenario);
+		return sim;
+	}
+}
@@ -0,0 +1,98 @@
+package simulator.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import simulator.Examples;
+import simulator.misc.Utils;
+import simulator.model.Simulator;
+
+public class ScenarioReaderTest {
+	private static final String[] EXAMPLES = { "ex1", "ex2", "ex3", "ex4", "ex5" };
+	private static final int STEPS = 50;
+	private static final double DT = 0.03;
+
+	@TempDir
+	Path dir;
+
+	private static String run(Simulator sim) {
+		try (sim) {
+			for (int i = 0; i < STEPS; i++)
+				sim.advance(DT);
+			return sim.asJSON().toString();
+		}
+	}
+
+	private static String loaded(JSONObject scenario) {
+		Utils.setSeed(Examples.SEED);
+		Simulator sim = Examples.newSimulator(scenario);
+		new Controller(sim).loadData(scenario);
+		return run(sim);
+	}
+
+	private String read(String name, String text) throws IOException {
+		Path file = dir.resolve(name);
+		Files.writeString(file, text);
+		Utils.setSeed(Examples.SEED);
+		return run(new ScenarioReader(file).load(Examples.animalFactory, Examples.regionFactory));
+	}
+
+	// the members of the scenario in the given order
+	private static String text(JSONObject scenario, String... keys) {
+		StringBuilder s = new StringBuilder("{");
+		for (String k : keys)
+			if (scenario.has(k)) {
+				if (s.length() > 1)
+					s.append(',');
+				s.append(JSONObject.quote(k)).append(':').append(scenario.get(k));
+			}
+		return s.append('}').toString();
+	}
+
+	@Test
+	public void animalsAfterTheHeaderAreReadInOnePass() throws IOException {
+		for (String name : EXAMPLES) {
+			JSONObject scenario = Examples.load(name);
+			String text = text(scenario, "cols", "rows", "width", "height", "regions", "animals");
+			assertEquals(loaded(scenario), read(name + ".json", text), name);
+		}
+	}
+
+	@Test
+	public void animalsBeforeTheHeaderAreReadInTwoPasses() throws IOException {
+		for (String name : EXAMPLES) {
+			JSONObject scenario = Examples.load(name);
+			String text = text(scenario, "animals", "regions", "width", "height", "cols", "rows");
+			assertEquals(loaded(scenario), read(name + ".json", text), name);
+		}
+	}
+
+	@Test
+	public void scenarioWithoutRegionsIsRead() throws IOException {
+		JSONObject scenario = Examples.load("ex1");
+		scenario.remove("regions");
+		String text = text(scenario, "width", "height", "cols", "rows", "animals");
+		assertEquals(loaded(scenario), read("no-regions.json", text));
+	}
+
+	@Test
+	public void malformedScenariosAreRejected() {
+		JSONObject scenario = Examples.load("ex1");
+		String full = text(scenario, "cols", "rows", "width", "height", "regions", "animals");
+		assertThrows(JSONException.class,
+				() -> read("no-rows.json", text(scenario, "cols", "width", "height", "animals")));
+		assertThrows(JSONException.class, () -> read("truncated.json", full.substring(0, full.length() - 20)));
+		assertThrows(JSONException.class,
+				() -> read("not-an-object.json", "{\"cols\":1,\"rows\":1,\"width\":100,\"height\":100,\"regions\":[],"
+						+ "\"animals\":[{\"spec\":{\"type\":\"sheep\",\"data\":{}},\"amount\":1},2]}"));
+	}
+}
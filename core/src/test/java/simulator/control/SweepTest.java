@@ -0,0 +1,107 @@
+package simulator.control;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import simulator.Examples;
+import simulator.model.AnimalInfo;
+import simulator.model.Diet;
+import simulator.model.Simulator;
+import simulator.model.State;
+
+public class SweepTest {
+	private static final double TIME = 3.0;
+	private static final double DT = 0.03;
+
+	@TempDir
+	Path dir;
+
+	private static Sweep sweep(String spec) {
+		return new Sweep(Examples.load("ex1"), new JSONObject(spec), TIME, DT, Examples.animalFactory,
+				Examples.regionFactory);
+	}
+
+	@Test
+	public void invalidSpecIsRejectedBeforeAnyRun() {
+		assertThrows(IllegalArgumentException.class, () -> sweep("{}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1, \"x\"]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"dt\": [0.03, 0]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"scale\": [1, 1.5]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"scale\": [-1]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"factor\": [2, -0.5]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"factor\": [\"NaN\"]}"));
+		assertThrows(IllegalArgumentException.class, () -> sweep("{\"seeds\": [1], \"factor\": [\"Infinity\"]}"));
+	}
+
+	@Test
+	public void everyCombinationIsARun() {
+		List<Sweep.Run> runs = sweep("{\"seeds\": [1, 2, 3], \"dt\": [0.03, 0.05], \"scale\": [1, 2]}").getRuns();
+		assertEquals(12, runs.size());
+		for (int i = 0; i < runs.size(); i++)
+			assertEquals(i, runs.get(i).getIndex());
+		assertEquals(2, runs.get(11).getScale());
+		assertEquals(0.05, runs.get(11).getDeltaTime());
+		assertEquals(3, runs.get(11).getSeed());
+	}
+
+	@Test
+	public void runWritesASummaryRowAndAFilePerRun() throws Exception {
+		Sweep sweep = sweep("{\"seeds\": [1, 2], \"scale\": [1, 2]}");
+		sweep.run(2, 1, dir.toFile());
+
+		List<String> summary = Files.readAllLines(dir.resolve(Sweep.SUMMARY_FILE));
+		assertEquals(5, summary.size());
+		assertTrue(summary.get(0).startsWith("run\tseed"));
+		for (String row : summary.subList(1, summary.size()))
+			assertTrue(row.endsWith("\tok"), row);
+		for (Sweep.Run r : sweep.getRuns()) {
+			JSONObject out = new JSONObject(Files.readString(dir.resolve(r.getName() + ".json")));
+			assertTrue(out.has("in") && out.has("out"));
+		}
+	}
+
+	@Test
+	public void runWithOnlyASeedIsTheBatchRun() throws Exception {
+		sweep("{\"seeds\": [" + Examples.SEED + "]}").run(1, 0, dir.toFile());
+
+		assertArrayEquals(batch(), Files.readAllBytes(dir.resolve("run-00000.json")));
+	}
+
+	@Test
+	public void summaryCountsOnlyTheLivingAnimals() throws Exception {
+		sweep("{\"seeds\": [" + Examples.SEED + "]}").run(1, 0, dir.toFile());
+
+		int[] diets = new int[Diet.values().length];
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			sim.setParallelism(0);
+			new Controller(sim).run(TIME, DT, false, new ByteArrayOutputStream());
+			for (AnimalInfo a : sim.getAnimals())
+				if (a.get_state() != State.DEAD)
+					diets[a.get_diet().ordinal()]++;
+		}
+		String[] row = Files.readAllLines(dir.resolve(Sweep.SUMMARY_FILE)).get(1).split("\t");
+		assertEquals(String.valueOf(diets[Diet.HERBIVORE.ordinal()]), row[6]);
+		assertEquals(String.valueOf(diets[Diet.CARNIVORE.ordinal()]), row[7]);
+	}
+
+	private static byte[] batch() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			sim.setParallelism(0);
+			new Controller(sim).run(TIME, DT, false, out);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,65 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import simulator.Examples;
+import simulator.control.Controller;
+import simulator.model.Simulator;
+
+public class JSONStreamWriterTest {
+	private static final String[] EXAMPLES = { "ex1", "ex2", "ex3", "ex4", "ex5" };
+	private static final int STEPS = 50;
+	private static final double DT = 0.03;
+
+	private static String stream(Simulator sim) throws IOException {
+		StringWriter out = new StringWriter();
+		JSONStreamWriter w = new JSONStreamWriter(out);
+		sim.writeJSON(w);
+		w.flush();
+		return out.toString();
+	}
+
+	@Test
+	public void valuesAreFormattedAsByOrgJson() throws IOException {
+		StringWriter out = new StringWriter();
+		JSONStreamWriter w = new JSONStreamWriter(out);
+		w.beginObject().key("s").value("a \"quoted\"\n</tag>").key("n").beginArray();
+		w.value(1.0).value(0.1).value(-3.5e-9).value(1e21).value(42).endArray();
+		w.key("o").beginObject().endObject().endObject();
+
+		JSONArray n = new JSONArray().put(1.0).put(0.1).put(-3.5e-9).put(1e21).put(42);
+		assertEquals("{\"s\":" + JSONObject.quote("a \"quoted\"\n</tag>") + ",\"n\":" + n + ",\"o\":{}}",
+				out.toString());
+	}
+
+	@Test
+	public void simulatorIsWrittenAsItsJSON() throws IOException {
+		for (String name : EXAMPLES)
+			try (Simulator sim = Examples.newLoadedSimulator(name)) {
+				assertEquals(sim.asJSON().toString(), stream(sim), name);
+				for (int i = 0; i < STEPS; i++)
+					sim.advance(DT);
+				assertEquals(sim.asJSON().toString(), stream(sim), name);
+			}
+	}
+
+	@Test
+	public void batchOutputIsTheTextOfInAndOut() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JSONObject expected = new JSONObject();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			expected.put("in", sim.asJSON());
+			new Controller(sim).run(STEPS * DT, DT, false, out);
+			expected.put("out", sim.asJSON());
+		}
+		assertEquals(expected.toString() + System.lineSeparator(), out.toString());
+	}
+}
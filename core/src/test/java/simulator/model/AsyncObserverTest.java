@@ -0,0 +1,280 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import simulator.Examples;
+
+public class AsyncObserverTest {
+	private static final JSONObject SHEEP = new JSONObject().put("type", "sheep").put("data", new JSONObject());
+
+	// does nothing, the tests override what they need
+	private static class Recorder implements EcoSysObserver {
+		@Override
+		public void onRegister(double time, MapInfo map, List<AnimalInfo> animals) {
+		}
+
+		@Override
+		public void onReset(double time, MapInfo map, List<AnimalInfo> animals) {
+		}
+
+		@Override
+		public void onAnimalAdded(double time, MapInfo map, List<AnimalInfo> animals, AnimalInfo a) {
+		}
+
+		@Override
+		public void onRegionSet(int row, int col, MapInfo map, RegionInfo r) {
+		}
+
+		@Override
+		public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void observerSeesTheMapAsItWasWhenTheEventWasQueued() throws InterruptedException {
+		List<String> seen = Collections.synchronizedList(new ArrayList<>());
+		List<String> expected = new ArrayList<>();
+		try (Simulator sim = Examples.newLoadedSimulator("ex2")) {
+			AsyncObserver async = sim.addAsyncObserver(new Recorder() {
+				@Override
+				public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+					// slow, so the simulation goes on meanwhile
+					sleep(2);
+					seen.add(map.asJSON().toString());
+					for (MapInfo.RegionData d : map) {
+						RegionInfo r = d.r();
+						assertFalse(r instanceof Region);
+						int n = 0;
+						for (Diet diet : Diet.values())
+							n += r.getNumberOfAnimals(diet);
+						assertEquals(r.getAnimalsInfo().size(), n);
+					}
+				}
+			}, AsyncObserver.Policy.BLOCK);
+			for (int i = 0; i < 40; i++) {
+				sim.advance(0.03);
+				expected.add(sim.getMapInfo().asJSON().toString());
+			}
+			async.close();
+			assertEquals(0, async.getFailures());
+		}
+		assertEquals(expected, seen);
+	}
+
+	@Test
+	public void regionSetIsACopy() throws InterruptedException {
+		List<RegionInfo> seen = Collections.synchronizedList(new ArrayList<>());
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = sim.addAsyncObserver(new Recorder() {
+				@Override
+				public void onRegionSet(int row, int col, MapInfo map, RegionInfo r) {
+					seen.add(r);
+				}
+			}, AsyncObserver.Policy.BLOCK);
+			sim.setRegion(0, 0, new JSONObject().put("type", "dynamic").put("data", new JSONObject()));
+			async.close();
+		}
+		assertEquals(1, seen.size());
+		assertFalse(seen.get(0) instanceof Region);
+	}
+
+	// stops in the first frame until released, recording the times of the frames
+	private static class Gate extends Recorder {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Double> frames = Collections.synchronizedList(new ArrayList<>());
+		volatile int added;
+
+		@Override
+		public void onAnimalsAdded(double time, MapInfo map, List<AnimalInfo> animals, List<AnimalInfo> a) {
+			added += a.size();
+		}
+
+		@Override
+		public void onAnimalAdded(double time, MapInfo map, List<AnimalInfo> animals, AnimalInfo a) {
+			added++;
+		}
+
+		@Override
+		public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+			frames.add(time);
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// one frame being delivered and then steps more frames while it is
+	private static AsyncObserver runBehind(Simulator sim, Gate gate, AsyncObserver.Policy policy, int steps)
+			throws InterruptedException {
+		AsyncObserver async = new AsyncObserver(gate, policy, 2);
+		sim.addObserver(async);
+		sim.advance(0.03);
+		gate.entered.await();
+		for (int i = 0; i < steps; i++)
+			sim.advance(0.03);
+		return async;
+	}
+
+	@Test
+	public void dropDiscardsTheFramesThatDoNotFit() throws InterruptedException {
+		Gate gate = new Gate();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = runBehind(sim, gate, AsyncObserver.Policy.DROP, 9);
+			assertEquals(7, async.getDropped());
+			gate.release.countDown();
+			async.close();
+			assertEquals(3, gate.frames.size());
+			assertEquals(0, async.getCoalesced());
+		}
+	}
+
+	@Test
+	public void coalesceKeepsOnlyTheLastFrame() throws InterruptedException {
+		Gate gate = new Gate();
+		double last;
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = runBehind(sim, gate, AsyncObserver.Policy.COALESCE, 9);
+			last = sim.getSimulationTime();
+			assertEquals(8, async.getCoalesced());
+			gate.release.countDown();
+			async.close();
+			assertEquals(0, async.getDropped());
+		}
+		assertEquals(2, gate.frames.size());
+		assertEquals(last, gate.frames.get(1).doubleValue());
+	}
+
+	@Test
+	public void blockDeliversEveryFrameInOrder() throws InterruptedException {
+		Gate gate = new Gate();
+		gate.release.countDown();
+		List<Double> times = new ArrayList<>();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = new AsyncObserver(gate, AsyncObserver.Policy.BLOCK, 2);
+			sim.addObserver(async);
+			for (int i = 0; i < 50; i++) {
+				sim.advance(0.03);
+				times.add(sim.getSimulationTime());
+			}
+			async.close();
+			assertEquals(0, async.getDropped() + async.getCoalesced());
+		}
+		assertEquals(times, gate.frames);
+	}
+
+	@Test
+	public void coalesceReplacesAFrameBehindOtherEvents() throws InterruptedException {
+		Gate gate = new Gate();
+		double last;
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = runBehind(sim, gate, AsyncObserver.Policy.COALESCE, 1);
+			sim.addAnimal(SHEEP);
+			sim.advance(0.03);
+			last = sim.getSimulationTime();
+			assertEquals(1, async.getCoalesced());
+			assertEquals(2, async.getPending());
+			gate.release.countDown();
+			async.close();
+		}
+		assertEquals(1, gate.added);
+		assertEquals(2, gate.frames.size());
+		assertEquals(last, gate.frames.get(1).doubleValue());
+	}
+
+	@Test
+	public void otherEventsTakeThePlaceOfAFrame() throws InterruptedException {
+		Gate gate = new Gate();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = runBehind(sim, gate, AsyncObserver.Policy.DROP, 2);
+			sim.addAnimal(SHEEP);
+			sim.addAnimal(SHEEP);
+			assertEquals(2, async.getPending());
+			assertEquals(2, async.getDropped());
+			gate.release.countDown();
+			async.close();
+			assertEquals(2, gate.added);
+			assertEquals(1, gate.frames.size());
+		}
+	}
+
+	@Test
+	public void otherEventsWaitWhenTheQueueIsFull() throws InterruptedException {
+		Gate gate = new Gate();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = runBehind(sim, gate, AsyncObserver.Policy.BLOCK, 2);
+			Thread adding = new Thread(() -> {
+				for (int i = 0; i < 100; i++)
+					sim.addAnimal(SHEEP);
+			});
+			adding.start();
+			sleep(50);
+			assertTrue(adding.isAlive());
+			assertEquals(2, async.getPending());
+			gate.release.countDown();
+			adding.join();
+			async.close();
+			assertEquals(100, gate.added);
+			assertEquals(3, gate.frames.size());
+		}
+	}
+
+	@Test
+	public void removingTheObserverStopsIt() {
+		Gate gate = new Gate();
+		gate.release.countDown();
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = sim.addAsyncObserver(gate, AsyncObserver.Policy.BLOCK);
+			for (int i = 0; i < 5; i++)
+				sim.advance(0.03);
+			sim.removeObserver(async);
+			// what was queued is delivered before removeObserver returns
+			assertEquals(5, gate.frames.size());
+			assertThrows(IllegalStateException.class, () -> async.onAdvanced(0, sim.getMapInfo(), List.of(), 0));
+		}
+	}
+
+	@Test
+	public void failuresAreKeptAndReported() throws InterruptedException {
+		List<RuntimeException> handled = Collections.synchronizedList(new ArrayList<>());
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			AsyncObserver async = new AsyncObserver(new Recorder() {
+				@Override
+				public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+					throw new IllegalStateException("frame " + time);
+				}
+			}, AsyncObserver.Policy.BLOCK);
+			async.setErrorHandler(handled::add);
+			sim.addObserver(async);
+			for (int i = 0; i < 5; i++)
+				sim.advance(0.03);
+			async.close();
+			assertEquals(5, async.getFailures());
+			assertEquals(5, handled.size());
+			assertSame(handled.get(0), async.getFirstFailure());
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import simulator.Examples;
+
+public class CheckpointTest {
+	private static final int STEPS = 100;
+	private static final double DT = 0.03;
+	private static final int MAGIC = 0x45434f43;
+
+	@TempDir
+	Path dir;
+
+	private static void advance(Simulator sim, int steps) {
+		for (int i = 0; i < steps; i++)
+			sim.advance(DT);
+	}
+
+	private void roundTrip(String scenario, int threads) throws IOException {
+		Path file = dir.resolve(scenario + "-" + threads + ".ckpt");
+		String expected;
+		try (Simulator sim = Examples.newLoadedSimulator(scenario)) {
+			sim.setParallelism(threads);
+			advance(sim, STEPS);
+			sim.saveCheckpoint(file);
+			advance(sim, STEPS);
+			expected = sim.asJSON().toString();
+		}
+
+		try (Simulator sim = Examples.newSimulator(Examples.load(scenario))) {
+			sim.setParallelism(threads);
+			sim.restoreCheckpoint(file);
+			advance(sim, STEPS);
+			assertEquals(expected, sim.asJSON().toString());
+		}
+	}
+
+	@Test
+	public void restoredSimulationGoesOnAsTheSavedOne() throws IOException {
+		roundTrip("ex1", 0);
+		roundTrip("ex4", 0);
+		roundTrip("ex4", 4);
+	}
+
+	@Test
+	public void checkpointCanBeReplacedAfterReadingIt() throws IOException {
+		Path file = dir.resolve("replaced.ckpt");
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			sim.saveCheckpoint(file);
+			sim.restoreCheckpoint(file);
+			advance(sim, 10);
+			sim.saveCheckpoint(file);
+			double time = sim.getSimulationTime();
+			sim.restoreCheckpoint(file);
+			assertEquals(time, sim.getSimulationTime());
+		}
+	}
+
+	@Test
+	public void fileWithoutTheMagicNumberIsRejected() throws IOException {
+		Path file = dir.resolve("bad-magic.ckpt");
+		Files.write(file, ByteBuffer.allocate(16).putInt(0x12345678).putInt(3).array());
+		assertThrows(IllegalArgumentException.class, () -> Checkpoint.read(file));
+
+		Path empty = dir.resolve("empty.ckpt");
+		Files.write(empty, new byte[0]);
+		assertThrows(IllegalArgumentException.class, () -> Checkpoint.read(empty));
+
+		Path json = dir.resolve("scenario.ckpt");
+		Files.writeString(json, new JSONObject().put("width", 800).toString());
+		assertThrows(IllegalArgumentException.class, () -> Checkpoint.read(json));
+	}
+
+	@Test
+	public void fileOfAnotherVersionIsRejected() throws IOException {
+		Path file = dir.resolve("bad-version.ckpt");
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			sim.saveCheckpoint(file);
+		}
+		byte[] bytes = Files.readAllBytes(file);
+		assertEquals(MAGIC, ByteBuffer.wrap(bytes).getInt());
+		ByteBuffer.wrap(bytes).putInt(4, 99);
+		Files.write(file, bytes);
+		assertThrows(IllegalArgumentException.class, () -> Checkpoint.read(file));
+	}
+}
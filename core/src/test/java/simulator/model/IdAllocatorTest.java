@@ -0,0 +1,83 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import simulator.misc.Vector2D;
+
+public class IdAllocatorTest {
+
+	@Test
+	public void releasedIdsAreReusedLastReleasedFirst() {
+		IdAllocator ids = new IdAllocator();
+		for (int i = 0; i < 5; i++)
+			assertEquals(i, ids.allocate());
+		ids.release(1);
+		ids.release(3);
+		assertEquals(3, ids.allocate());
+		assertEquals(1, ids.allocate());
+		assertEquals(5, ids.allocate());
+		assertEquals(6, ids.capacity());
+	}
+
+	@Test
+	public void freeListGrows() {
+		IdAllocator ids = new IdAllocator();
+		for (int i = 0; i < 100; i++)
+			ids.allocate();
+		for (int i = 0; i < 100; i++)
+			ids.release(i);
+		for (int i = 99; i >= 0; i--)
+			assertEquals(i, ids.allocate());
+		assertEquals(100, ids.allocate());
+	}
+
+	@Test
+	public void onlyAllocatedIdsCanBeReleased() {
+		IdAllocator ids = new IdAllocator();
+		ids.allocate();
+		assertThrows(IllegalArgumentException.class, () -> ids.release(-1));
+		assertThrows(IllegalArgumentException.class, () -> ids.release(1));
+	}
+
+	@Test
+	public void restoredAllocatorGoesOnAsTheSavedOne() {
+		IdAllocator ids = new IdAllocator();
+		for (int i = 0; i < 8; i++)
+			ids.allocate();
+		ids.release(2);
+		ids.release(6);
+		assertArrayEquals(new int[] { 2, 6 }, ids.getFree());
+
+		IdAllocator restored = new IdAllocator();
+		restored.restore(ids.capacity(), ids.getFree());
+		for (int i = 0; i < 3; i++)
+			assertEquals(ids.allocate(), restored.allocate());
+		assertEquals(ids.capacity(), restored.capacity());
+	}
+
+	@Test
+	public void registeredAnimalsGetTheIdsOfUnregisteredOnes() {
+		RegionManager rm = new RegionManager(4, 4, 400, 400);
+		Animal[] animals = new Animal[3];
+		for (int i = 0; i < animals.length; i++) {
+			animals[i] = new Sheep(new SelectFirst(), new SelectFirst(), new Vector2D(10.0 * i, 10.0));
+			rm.registerAnimal(animals[i]);
+			assertEquals(i, animals[i].get_id());
+			assertSame(animals[i], rm.getAnimal(i));
+		}
+		rm.unregisterAnimal(animals[1]);
+		assertEquals(-1, animals[1].get_id());
+		assertNull(rm.getAnimal(1));
+
+		Animal a = new Sheep(new SelectFirst(), new SelectFirst(), new Vector2D(50.0, 50.0));
+		rm.registerAnimal(a);
+		assertEquals(1, a.get_id());
+		assertSame(a, rm.getAnimal(1));
+	}
+}
@@ -0,0 +1,113 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import simulator.Examples;
+
+public class PopulationViewTest {
+	private static final JSONObject SHEEP = new JSONObject().put("type", "sheep").put("data", new JSONObject());
+
+	private static List<String> positions(List<? extends AnimalInfo> animals) {
+		List<String> l = new ArrayList<>();
+		for (AnimalInfo a : animals)
+			l.add(a.get_position() + " " + a.get_state());
+		return l;
+	}
+
+	@Test
+	public void viewKeepsItsEpochAfterTheSimulationAdvances() {
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			PopulationView view = sim.getPopulationView();
+			assertTrue(view.isLive());
+			assertSame(sim.getAnimals().get(0), view.get(0));
+			List<String> before = positions(sim.getAnimals());
+
+			for (int i = 0; i < 50; i++)
+				sim.advance(0.03);
+
+			assertFalse(view.isLive());
+			assertEquals(before, positions(view));
+			assertNotEquals(before, positions(sim.getAnimals()));
+			assertNotEquals(view.getEpoch(), sim.getPopulationView().getEpoch());
+		}
+	}
+
+	@Test
+	public void viewsOfAddedAnimalsShareTheSnapshotsOfTheOthers() {
+		try (Simulator sim = Examples.newLoadedSimulator("ex1")) {
+			PopulationView first = sim.getPopulationView();
+			sim.addAnimal(SHEEP);
+			PopulationView second = sim.getPopulationView();
+			sim.addAnimal(SHEEP);
+
+			assertEquals(first.size() + 1, second.size());
+			assertEquals(second.size() + 1, sim.getAnimals().size());
+			for (int i = 0; i < first.size(); i++)
+				assertSame(first.get(i), second.get(i));
+		}
+	}
+
+	@Test
+	public void snapshotCanBeReadFromAnotherThread() throws InterruptedException {
+		try (Simulator sim = Examples.newLoadedSimulator("ex4")) {
+			List<AnimalInfo> snapshot = sim.getPopulationView().snapshot();
+			List<String> expected = positions(snapshot);
+			List<List<String>> seen = new ArrayList<>();
+			Thread reader = new Thread(() -> {
+				for (int i = 0; i < 20; i++)
+					seen.add(positions(snapshot));
+			});
+			reader.start();
+			for (int i = 0; i < 50; i++)
+				sim.advance(0.03);
+			reader.join();
+			for (List<String> l : seen)
+				assertEquals(expected, l);
+		}
+	}
+
+	@Test
+	public void observersCanKeepTheViewsTheyGet() {
+		try (Simulator sim = Examples.newLoadedSimulator("ex2")) {
+			List<List<AnimalInfo>> frames = new ArrayList<>();
+			List<List<String>> expected = new ArrayList<>();
+			sim.addObserver(new EcoSysObserver() {
+				@Override
+				public void onRegister(double time, MapInfo map, List<AnimalInfo> animals) {
+				}
+
+				@Override
+				public void onReset(double time, MapInfo map, List<AnimalInfo> animals) {
+				}
+
+				@Override
+				public void onAnimalAdded(double time, MapInfo map, List<AnimalInfo> animals, AnimalInfo a) {
+				}
+
+				@Override
+				public void onRegionSet(int row, int col, MapInfo map, RegionInfo r) {
+				}
+
+				@Override
+				public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+					frames.add(animals);
+					expected.add(positions(animals));
+				}
+			});
+			for (int i = 0; i < 30; i++)
+				sim.advance(0.03);
+			for (int i = 0; i < frames.size(); i++)
+				assertEquals(expected.get(i), positions(frames.get(i)));
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import simulator.misc.Vector2D;
+
+public class RegionManagerTest {
+
+	private static Animal sheep(double x, double y) {
+		return new Sheep(new SelectFirst(), new SelectFirst(), new Vector2D(x, y));
+	}
+
+	@Test
+	public void handleResolvesToItsAnimalWhileRegistered() {
+		RegionManager rm = new RegionManager(4, 4, 400, 400);
+		Animal a = sheep(10.0, 10.0);
+		Animal b = sheep(20.0, 20.0);
+		rm.registerAnimal(a);
+		rm.registerAnimal(b);
+		long ha = rm.handleOf(a);
+		long hb = rm.handleOf(b);
+		assertSame(a, rm.resolve(ha));
+		assertSame(b, rm.resolve(hb));
+
+		rm.unregisterAnimal(a);
+		assertNull(rm.resolve(ha));
+		assertSame(b, rm.resolve(hb));
+	}
+
+	@Test
+	public void handleOfAReusedIdDoesNotResolveToTheNewAnimal() {
+		RegionManager rm = new RegionManager(4, 4, 400, 400);
+		Animal a = sheep(10.0, 10.0);
+		rm.registerAnimal(a);
+		long old = rm.handleOf(a);
+		rm.unregisterAnimal(a);
+
+		Animal b = sheep(30.0, 30.0);
+		rm.registerAnimal(b);
+		long current = rm.handleOf(b);
+		assertEquals(-1, a.get_id());
+		assertNotEquals(old, current);
+		assertNull(rm.resolve(old));
+		assertSame(b, rm.resolve(current));
+	}
+
+	@Test
+	public void onlyRegisteredAnimalsHaveHandles() {
+		RegionManager rm = new RegionManager(4, 4, 400, 400);
+		assertThrows(IllegalArgumentException.class, () -> rm.handleOf(sheep(10.0, 10.0)));
+		assertNull(rm.resolve(-1L));
+		assertNull(rm.resolve(1000L));
+	}
+}
@@ -0,0 +1,130 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import simulator.Examples;
+import simulator.factories.BuilderBasedFactory;
+import simulator.factories.Builder;
+import simulator.factories.Factory;
+import simulator.factories.SheepBuilder;
+import simulator.factories.WolfBuilder;
+import simulator.misc.Utils;
+
+public class SimulatorTest {
+	private static final int STEPS = 200;
+	private static final double DT = 0.03;
+
+	private static String run(String scenario, int threads) {
+		try (Simulator sim = Examples.newLoadedSimulator(scenario)) {
+			sim.setParallelism(threads);
+			for (int i = 0; i < STEPS; i++)
+				sim.advance(DT);
+			return sim.asJSON().toString();
+		}
+	}
+
+	@Test
+	public void bufferedUpdateDoesNotDependOnTheNumberOfThreads() {
+		String one = run("ex1", 1);
+		assertEquals(one, run("ex1", 2));
+		assertEquals(one, run("ex1", 4));
+	}
+
+	@Test
+	public void sequentialUpdateIsReproducible() {
+		String sequential = run("ex1", 0);
+		assertEquals(sequential, run("ex1", 0));
+		// with 0 threads every animal sees the changes of the previous ones
+		assertNotEquals(sequential, run("ex1", 1));
+	}
+
+	@Test
+	public void closedSimulatorKeepsTheResultOfItsThreads() {
+		String expected = run("ex4", 4);
+		try (Simulator sim = Examples.newLoadedSimulator("ex4")) {
+			sim.setParallelism(4);
+			for (int i = 0; i < STEPS / 2; i++)
+				sim.advance(DT);
+			sim.close();
+			for (int i = STEPS / 2; i < STEPS; i++)
+				sim.advance(DT);
+			assertEquals(expected, sim.asJSON().toString());
+		}
+	}
+
+	@Test
+	public void sequentialQueriesSeeEveryAnimalInRange() {
+		CheckingStrategy check = new CheckingStrategy();
+		Factory<SelectionStrategy> strategies = new BuilderBasedFactory<>(List.of(new Builder<SelectionStrategy>("check", "Checks the queries") {
+			@Override
+			protected SelectionStrategy createInstance(JSONObject data) {
+				return check;
+			}
+		}));
+		Factory<Animal> animals = new BuilderBasedFactory<>(
+				List.of(new SheepBuilder(strategies), new WolfBuilder(strategies)));
+		String strategy = "{\"type\": \"check\", \"data\": {}}";
+		JSONObject sheep = new JSONObject("{\"type\": \"sheep\", \"data\": {}}");
+		sheep.getJSONObject("data").put("mate_strategy", new JSONObject(strategy)).put("hunt_strategy",
+				new JSONObject(strategy));
+		JSONObject wolf = new JSONObject("{\"type\": \"wolf\", \"data\": {}}");
+		wolf.getJSONObject("data").put("mate_strategy", new JSONObject(strategy)).put("danger_strategy",
+				new JSONObject(strategy));
+
+		Utils.setSeed(Examples.SEED);
+		try (Simulator sim = new Simulator(20, 15, 800, 600, animals, Examples.regionFactory)) {
+			sim.addAnimals(sheep, 1500);
+			sim.addAnimals(wolf, 500);
+			// large steps, so animals often leave the cell they started the step in
+			for (int i = 0; i < 30; i++)
+				sim.advance(0.2);
+		}
+		assertTrue(check.queries > 0);
+		assertEquals(0, check.wrong, check.wrong + " of " + check.queries + " queries missed animals");
+	}
+
+	// compares every query made through it with a scan of all the animals
+	private static class CheckingStrategy implements SelectionStrategy {
+		int queries;
+		int wrong;
+
+		@Override
+		public Animal reduce(Animal a, Animal best, Animal candidate) {
+			return best == null ? candidate : best;
+		}
+
+		@Override
+		public boolean isFinal(Animal a, Animal best) {
+			return true;
+		}
+
+		@Override
+		public Animal select(Animal a, AnimalMapView map, Predicate<Animal> filter) {
+			RegionManager rm = (RegionManager) map;
+			Set<Animal> found = Collections.newSetFromMap(new IdentityHashMap<>());
+			found.addAll(rm.getAnimalsInRange(a, filter));
+			Set<Animal> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+			double r = a.get_sightRange();
+			for (int id = 0; id < rm.getIdAllocator().capacity(); id++) {
+				Animal b = rm.getAnimal(id);
+				if (b != null && b.get_position().distanceSqTo(a.get_position()) < r * r && filter.test(b))
+					expected.add(b);
+			}
+			queries++;
+			if (!found.equals(expected))
+				wrong++;
+			return SelectionStrategy.super.select(a, map, filter);
+		}
+	}
+}
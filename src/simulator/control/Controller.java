@@ -1,13 +1,19 @@
 package simulator.control;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import simulator.misc.JSONStreamWriter;
 import simulator.model.AnimalInfo;
+import simulator.model.AsyncObserver;
 import simulator.model.MapInfo;
 import simulator.model.Simulator;
 import simulator.model.EcoSysObserver;
@@ -16,11 +22,50 @@ import simulator.view.SimpleObjectViewer.ObjInfo;
 
 public class Controller {
 	private final Simulator sim;
+	// viewer frames, see setFrameSkip and setMaxFps
+	private int frameSkip;
+	private double maxFps;
+	// see setCheckpoints
+	private int checkpointEvery;
+	private Path checkpointFile;
 
 	public Controller(Simulator sim) {
 		this.sim = sim;
+		this.frameSkip = 1;
+		this.maxFps = 0.0;
+		this.checkpointEvery = 0;
+		this.checkpointFile = null;
+	}
+
+	// with the viewer on, only every frameSkip-th step is drawn
+	public void setFrameSkip(int frameSkip) {
+		if (frameSkip < 1)
+			throw new IllegalArgumentException("The frame skip must be at least 1");
+		this.frameSkip = frameSkip;
+	}
+
+	// with the viewer on, at most maxFps frames are drawn per second, 0 for no limit
+	public void setMaxFps(double maxFps) {
+		if (maxFps < 0)
+			throw new IllegalArgumentException("The maximum frames per second cannot be negative");
+		this.maxFps = maxFps;
 	}
 	
+	// run saves the simulation to file every steps steps, 0 saves nothing
+	public void setCheckpoints(int steps, Path file) {
+		if (steps < 0)
+			throw new IllegalArgumentException("The number of steps between checkpoints cannot be negative");
+		if (steps > 0 && file == null)
+			throw new IllegalArgumentException("Checkpoints need a file");
+		checkpointEvery = steps;
+		checkpointFile = file;
+	}
+
+	// continues the simulation saved in file, instead of loading a scenario
+	public void restore(Path file) throws IOException {
+		sim.restoreCheckpoint(file);
+	}
+
 	public void reset(int cols, int rows, int width, int height) {
 		sim.reset(cols, rows, width, height);
 	}
@@ -45,6 +90,11 @@ public class Controller {
 		}
 	}
 	
+	// stops the worker threads of the simulator, see Simulator.close
+	public void close() {
+		sim.close();
+	}
+
 	public void advance(double dt) {
 		sim.advance(dt);
 	}
@@ -53,6 +103,10 @@ public class Controller {
 		sim.addObserver(o);
 	}
 	
+	public AsyncObserver addAsyncObserver(EcoSysObserver o, AsyncObserver.Policy policy) {
+		return sim.addAsyncObserver(o, policy);
+	}
+
 	public void removeObserver(EcoSysObserver o) {
 		sim.removeObserver(o);
 	}
@@ -68,13 +122,23 @@ public class Controller {
 			int amount = animal.getInt("amount");
 			JSONObject spec = animal.getJSONObject("spec");
 
-			for (int j = 0; j < amount ; j++) {
-				sim.addAnimal(spec);
-			}
+			sim.addAnimals(spec, amount);
 		}
 	}
 
-	public void run(double t, double dt, boolean sv, OutputStream out) {
+	public void run(double t, double dt, boolean sv, OutputStream out) throws IOException {
+		run(t, dt, sv, out, 0, null);
+	}
+
+	// with snapshotEvery > 0 a frame is written to frames at the start and then
+	// every snapshotEvery steps, see SnapshotWriter. Without the viewer nothing
+	// is done for presentation between steps. With it, by default every step is
+	// drawn and the viewer waits dt between them; with a frame skip or a maximum
+	// fps the simulation runs as fast as it can and only some steps are drawn
+	public void run(double t, double dt, boolean sv, OutputStream out, int snapshotEvery, OutputStream frames)
+			throws IOException {
+		if (snapshotEvery < 0)
+			throw new IllegalArgumentException("The number of steps between snapshots cannot be negative");
 		// Initialize viewer
 		SimpleObjectViewer view = null;
 		if (sv) {
@@ -82,25 +146,51 @@ public class Controller {
 			view = new SimpleObjectViewer("[ECOSYSTEM]", m.get_width(), m.get_height(), m.get_cols(), m.get_rows());
 			view.update(toAnimalsInfo(sim.getAnimals()), sim.getSimulationTime(), dt);
 		}
-		// store initial and final simulation state
-		JSONObject jo = new JSONObject();
-		jo.put("in", sim.asJSON());
+		// initial and final simulation state are streamed to out as they are
+		// reached, the same text as printing {"in": sim.asJSON(), "out": sim.asJSON()}
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+		JSONStreamWriter json = new JSONStreamWriter(writer);
+		json.beginObject().key("in");
+		sim.writeJSON(json);
 
 		// Main loop
-		while (sim.getSimulationTime() <= t) {
-			sim.advance(dt);
-			if (sv)
-				view.update(toAnimalsInfo(sim.getAnimals()), sim.getSimulationTime(), dt);
+		try (SnapshotWriter snapshots = snapshotEvery > 0 ? new SnapshotWriter(frames) : null) {
+			if (snapshots != null)
+				snapshots.write(sim);
+			int steps = 0;
+			boolean paced = frameSkip == 1 && maxFps == 0.0;
+			long frameNanos = maxFps > 0.0 ? (long) (1e9 / maxFps) : 0L;
+			// nanoTime has an arbitrary origin, 0 would not always be in the past
+			long nextFrame = System.nanoTime();
+			while (sim.getSimulationTime() <= t) {
+				sim.advance(dt);
+				steps++;
+				if (snapshots != null && steps % snapshotEvery == 0)
+					snapshots.write(sim);
+				if (checkpointEvery > 0 && steps % checkpointEvery == 0)
+					sim.saveCheckpoint(checkpointFile);
+				if (view != null && steps % frameSkip == 0) {
+					if (paced) {
+						view.update(toAnimalsInfo(sim.getAnimals()), sim.getSimulationTime(), dt);
+					} else {
+						long now = System.nanoTime();
+						if (now - nextFrame >= 0) {
+							nextFrame = now + frameNanos;
+							view.update(toAnimalsInfo(sim.getAnimals()), sim.getSimulationTime());
+						}
+					}
+				}
+			}
 		}
 
-		jo.put("out", sim.asJSON());
-
-		// Write out the json
-		PrintStream printStream = new PrintStream(out);
-		printStream.println(jo);
+		json.key("out");
+		sim.writeJSON(json);
+		json.endObject();
+		writer.write(System.lineSeparator());
+		writer.flush();
 
 		// Close view if viewer active
-		if (sv)
+		if (view != null)
 			view.close();
 	}
 
@@ -0,0 +1,237 @@
+package simulator.control;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import simulator.factories.Factory;
+import simulator.model.Animal;
+import simulator.model.Region;
+import simulator.model.Simulator;
+
+/**
+ * Loads a scenario file into a new simulator without building the JSON tree
+ * of the whole file. A thread of its own parses the file, one element of the
+ * animals array at a time, and hands the elements to the calling thread
+ * through a bounded queue, so parsing overlaps with the creation of the
+ * animals and only a few elements are in memory at once. The result is the
+ * same as {@link Controller#loadData} on the whole file.
+ * <p>
+ * The regions have to be set before the animals are created, so when the
+ * animals array comes before the regions or the map size (or there are no
+ * regions), the array is skipped on a first pass over the file and read on a
+ * second one.
+ */
+public class ScenarioReader {
+	public static final int QUEUE_CAPACITY = 1024;
+
+	private static final String[] DIMENSIONS = { "width", "height", "cols", "rows" };
+	private static final String REGIONS_KEY = "regions";
+	private static final String ANIMALS_KEY = "animals";
+	// the end of the file, or the error found while parsing it
+	private static final Object END = new Object();
+
+	private final Path file;
+	private final BlockingQueue<Object> queue;
+	private volatile Exception error;
+
+	public ScenarioReader(Path file) {
+		this.file = file;
+		this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	}
+
+	public Simulator load(Factory<Animal> animalFactory, Factory<Region> regionFactory) throws IOException {
+		Thread parser = new Thread(this::parse, "scenario-reader");
+		parser.setDaemon(true);
+		parser.start();
+		try {
+			JSONObject header = (JSONObject) take();
+			Simulator sim = new Simulator(header.getInt("cols"), header.getInt("rows"), header.getInt("width"),
+					header.getInt("height"), animalFactory, regionFactory);
+			new Controller(sim).setRegions(header);
+			for (Object o = take(); o != END; o = take()) {
+				JSONObject animal = (JSONObject) o;
+				sim.addAnimals(animal.getJSONObject("spec"), animal.getInt("amount"));
+			}
+			return sim;
+		} finally {
+			parser.interrupt();
+		}
+	}
+
+	// Auxiliary methods
+	private Object take() throws IOException {
+		Object o;
+		try {
+			o = queue.take();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("Interrupted while reading " + file);
+		}
+		if (o == END && error != null) {
+			if (error instanceof RuntimeException)
+				throw (RuntimeException) error;
+			throw new IOException("Cannot read " + file, error);
+		}
+		return o;
+	}
+
+	// the header (map size and regions) and then the animals, one by one
+	private void parse() {
+		try {
+			boolean deferred;
+			try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				deferred = firstPass(new JSONTokener(in));
+			}
+			if (deferred)
+				try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+					secondPass(new JSONTokener(in));
+				}
+			queue.put(END);
+		} catch (InterruptedException e) {
+			// the reader gave up
+		} catch (Exception e) {
+			error = e;
+			queue.clear();
+			queue.offer(END);
+		}
+	}
+
+	// returns whether the animals have to be read on a second pass
+	private boolean firstPass(JSONTokener t) throws InterruptedException {
+		JSONObject header = new JSONObject();
+		boolean streamed = false;
+		boolean deferred = false;
+		expect(t, '{');
+		for (String key = nextKey(t); key != null; key = nextKey(t)) {
+			if (key.equals(ANIMALS_KEY)) {
+				if (hasDimensions(header) && header.has(REGIONS_KEY)) {
+					queue.put(header);
+					streamAnimals(t);
+					streamed = true;
+				} else {
+					skipValue(t);
+					deferred = true;
+				}
+			} else if (!streamed && (key.equals(REGIONS_KEY) || isDimension(key))) {
+				header.put(key, t.nextValue());
+			} else {
+				skipValue(t);
+			}
+			if (!nextMember(t))
+				break;
+		}
+		if (!streamed) {
+			if (!hasDimensions(header))
+				throw t.syntaxError("The scenario needs its width, height, cols and rows");
+			queue.put(header);
+		}
+		return deferred;
+	}
+
+	private void secondPass(JSONTokener t) throws InterruptedException {
+		expect(t, '{');
+		for (String key = nextKey(t); key != null; key = nextKey(t)) {
+			if (key.equals(ANIMALS_KEY)) {
+				streamAnimals(t);
+				return;
+			}
+			skipValue(t);
+			if (!nextMember(t))
+				break;
+		}
+	}
+
+	private void streamAnimals(JSONTokener t) throws InterruptedException {
+		expect(t, '[');
+		char c = t.nextClean();
+		if (c == ']')
+			return;
+		t.back();
+		while (true) {
+			Object o = t.nextValue();
+			if (!(o instanceof JSONObject))
+				throw t.syntaxError("Every element of animals must be an object");
+			queue.put(o);
+			c = t.nextClean();
+			if (c == ']')
+				return;
+			if (c != ',')
+				throw t.syntaxError("Expected ',' or ']'");
+		}
+	}
+
+	// the next key of an object and its ':', null at the end of the object
+	private static String nextKey(JSONTokener t) {
+		char c = t.nextClean();
+		if (c == '}')
+			return null;
+		if (c != '"')
+			throw t.syntaxError("Expected a key");
+		String key = t.nextString('"');
+		expect(t, ':');
+		return key;
+	}
+
+	// whether another member follows the one just read
+	private static boolean nextMember(JSONTokener t) {
+		char c = t.nextClean();
+		if (c == ',')
+			return true;
+		if (c == '}')
+			return false;
+		throw t.syntaxError("Expected ',' or '}'");
+	}
+
+	// goes over a value without building it
+	private static void skipValue(JSONTokener t) {
+		char c = t.nextClean();
+		if (c == '"' || c == '\'') {
+			t.nextString(c);
+			return;
+		}
+		if (c != '{' && c != '[') {
+			t.back();
+			t.nextValue();
+			return;
+		}
+		int depth = 1;
+		while (depth > 0) {
+			c = t.next();
+			if (c == 0)
+				throw t.syntaxError("Unterminated value");
+			if (c == '"' || c == '\'')
+				t.nextString(c);
+			else if (c == '{' || c == '[')
+				depth++;
+			else if (c == '}' || c == ']')
+				depth--;
+		}
+	}
+
+	private static void expect(JSONTokener t, char expected) {
+		if (t.nextClean() != expected)
+			throw t.syntaxError("Expected '" + expected + "'");
+	}
+
+	private static boolean isDimension(String key) {
+		for (String d : DIMENSIONS)
+			if (d.equals(key))
+				return true;
+		return false;
+	}
+
+	private static boolean hasDimensions(JSONObject header) {
+		for (String d : DIMENSIONS)
+			if (!header.has(d))
+				return false;
+		return true;
+	}
+}
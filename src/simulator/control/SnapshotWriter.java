@@ -0,0 +1,115 @@
+package simulator.control;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import simulator.misc.JSONStreamWriter;
+import simulator.model.Simulator;
+
+/**
+ * Writes frames of a simulation as newline-delimited JSON, one line per frame
+ * with the same text as {@link Simulator#asJSON()}. The simulation thread only
+ * turns the state into text, the output is written by a background thread, so
+ * the simulation waits for the disk only when the queue of frames is full.
+ */
+public class SnapshotWriter implements Closeable {
+	private static final int DEFAULT_QUEUE_CAPACITY = 4;
+	// marks the end of the frames, compared by reference
+	private static final String END = new String();
+
+	private final BlockingQueue<String> _frames;
+	private final Writer _out;
+	private final Thread _thread;
+	private volatile IOException _error;
+	private int _written;
+	private boolean _closed;
+
+	public SnapshotWriter(OutputStream out) {
+		this(out, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public SnapshotWriter(OutputStream out, int queueCapacity) {
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("The queue of frames needs room for at least one frame");
+		_frames = new ArrayBlockingQueue<>(queueCapacity);
+		_out = new BufferedWriter(new OutputStreamWriter(out));
+		_thread = new Thread(this::writeFrames, "snapshot-writer");
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	public int getFramesWritten() {
+		return _written;
+	}
+
+	public void write(Simulator sim) throws IOException {
+		if (_closed)
+			throw new IllegalStateException("The snapshot writer is closed");
+		if (_error != null)
+			throw _error;
+		StringWriter frame = new StringWriter();
+		sim.writeJSON(new JSONStreamWriter(frame));
+		frame.write(System.lineSeparator());
+		put(frame.toString());
+		_written++;
+	}
+
+	// waits for the pending frames and flushes them, the stream is not closed
+	@Override
+	public void close() throws IOException {
+		if (_closed)
+			return;
+		_closed = true;
+		put(END);
+		try {
+			_thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the snapshot writer");
+		}
+		if (_error != null)
+			throw _error;
+	}
+
+	private void put(String frame) throws IOException {
+		try {
+			_frames.put(frame);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while queuing a frame");
+		}
+	}
+
+	private void writeFrames() {
+		try {
+			String frame;
+			while ((frame = _frames.take()) != END) {
+				// after an error the frames are only drained, so the simulation does not block
+				if (_error == null)
+					writeFrame(frame);
+			}
+			if (_error == null)
+				_out.flush();
+		} catch (IOException e) {
+			_error = e;
+		} catch (InterruptedException e) {
+			_error = new InterruptedIOException("Snapshot writer interrupted");
+		}
+	}
+
+	private void writeFrame(String frame) {
+		try {
+			_out.write(frame);
+		} catch (IOException e) {
+			_error = e;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package simulator.control;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import simulator.factories.DynamicSupplyRegionBuilder;
+import simulator.factories.Factory;
+import simulator.misc.Utils;
+import simulator.model.Animal;
+import simulator.model.AnimalInfo;
+import simulator.model.Diet;
+import simulator.model.Region;
+import simulator.model.Simulator;
+import simulator.model.State;
+
+/**
+ * Runs many independent simulations of the same scenario in one JVM, on a
+ * fixed number of worker threads. The sweep spec lists the values to try:
+ *
+ * <pre>
+ * {
+ *   "seeds": [1, 2, 3],
+ *   "dt": [0.03, 0.05],
+ *   "scale": [1, 2],
+ *   "factor": [2.0, 2.5]
+ * }
+ * </pre>
+ *
+ * and every combination of them is a run. scale multiplies the amount of every
+ * animal spec and factor replaces the growth factor of the dynamic regions,
+ * parameters left out keep the value of the scenario (dt the default one). The
+ * output of each run is written to its own file in the output folder, as in
+ * batch mode, and a row per run is added to {@value #SUMMARY_FILE} as soon as
+ * it finishes.
+ */
+public class Sweep {
+	public static final String SUMMARY_FILE = "summary.tsv";
+	public static final String SEEDS_KEY = "seeds";
+	public static final String DT_KEY = "dt";
+	public static final String SCALE_KEY = "scale";
+	public static final String FACTOR_KEY = "factor";
+
+	private static final String HEADER = "run\tseed\tdt\tscale\tfactor\ttime\tsheep\twolves\tmillis\tstatus";
+
+	private final JSONObject scenario;
+	private final double time;
+	private final Factory<Animal> animalFactory;
+	private final Factory<Region> regionFactory;
+	private final List<Run> runs;
+
+	public Sweep(JSONObject scenario, JSONObject spec, double time, double dt, Factory<Animal> animalFactory,
+			Factory<Region> regionFactory) {
+		// the whole spec is checked before any run is built
+		JSONArray seeds = spec.optJSONArray(SEEDS_KEY);
+		if (seeds == null || seeds.length() == 0)
+			throw new IllegalArgumentException("A sweep needs at least one seed");
+		long[] seedValues = new long[seeds.length()];
+		for (int i = 0; i < seeds.length(); i++) {
+			Object seed = seeds.get(i);
+			if (!(seed instanceof Integer || seed instanceof Long))
+				throw new IllegalArgumentException("Invalid sweep seed: " + seed);
+			seedValues[i] = ((Number) seed).longValue();
+		}
+		List<Double> dts = values(spec, DT_KEY, dt);
+		for (double d : dts)
+			if (!(d > 0))
+				throw new IllegalArgumentException("Invalid sweep dt: " + d);
+		List<Double> scales = values(spec, SCALE_KEY, 1.0);
+		for (double s : scales)
+			if (s < 0 || (int) s != s)
+				throw new IllegalArgumentException("Invalid sweep scale: " + s);
+		List<Double> factors = values(spec, FACTOR_KEY, Double.NaN);
+		JSONArray given = spec.optJSONArray(FACTOR_KEY);
+		if (given != null && given.length() > 0)
+			for (double f : factors)
+				if (!(f >= 0) || Double.isInfinite(f))
+					throw new IllegalArgumentException("Invalid sweep factor: " + f);
+
+		this.scenario = scenario;
+		this.time = time;
+		this.animalFactory = animalFactory;
+		this.regionFactory = regionFactory;
+		List<Run> runs = new ArrayList<>();
+		for (double d : dts)
+			for (double s : scales)
+				for (double f : factors)
+					for (long seed : seedValues)
+						runs.add(new Run(runs.size(), seed, d, (int) s, f));
+		this.runs = Collections.unmodifiableList(runs);
+	}
+
+	public List<Run> getRuns() {
+		return runs;
+	}
+
+	/**
+	 * Runs every simulation with at most jobs of them at the same time, each one
+	 * updating its animals with the given number of threads (see
+	 * {@link Simulator#setParallelism(int)}). A run that fails is reported in
+	 * the summary and does not stop the rest.
+	 */
+	public void run(int jobs, int threads, File dir) throws IOException, InterruptedException {
+		if (jobs < 1)
+			throw new IllegalArgumentException("A sweep needs at least one job");
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Cannot create the output folder " + dir);
+
+		AtomicInteger workers = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(jobs, r -> {
+			Thread t = new Thread(r, "sweep-" + workers.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		try (PrintWriter summary = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, SUMMARY_FILE))))) {
+			summary.println(HEADER);
+			summary.flush();
+			CompletionService<String> done = new ExecutorCompletionService<>(executor);
+			for (Run r : runs)
+				done.submit(() -> execute(r, threads, dir));
+			for (int i = 0; i < runs.size(); i++) {
+				try {
+					summary.println(done.take().get());
+				} catch (ExecutionException e) {
+					// execute reports its own failures, this is only an Error
+					throw new IllegalStateException(e.getCause());
+				}
+				summary.flush();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Auxiliary methods
+	private String execute(Run r, int threads, File dir) {
+		long start = System.nanoTime();
+		int[] diets = new int[Diet.values().length];
+		double simTime = 0.0;
+		String status = "ok";
+		// the seed of the master stream belongs to the thread, so each run only
+		// depends on its own seed and not on which worker runs it
+		Utils.setSeed(r.seed);
+		Simulator sim = null;
+		try {
+			JSONObject input = r.apply(scenario);
+			sim = new Simulator(input.getInt("cols"), input.getInt("rows"), input.getInt("width"),
+					input.getInt("height"), animalFactory, regionFactory);
+			sim.setParallelism(threads);
+			Controller controller = new Controller(sim);
+			controller.loadData(input);
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(dir, r.getName() + ".json")))) {
+				controller.run(time, r.dt, false, out);
+			}
+			simTime = sim.getSimulationTime();
+			// the same as Animal.isAlive, dead animals may not have been removed yet
+			for (AnimalInfo a : sim.getAnimals())
+				if (a.get_state() != State.DEAD)
+					diets[a.get_diet().ordinal()]++;
+		} catch (Exception e) {
+			status = "failed: " + e;
+		} finally {
+			if (sim != null)
+				sim.close();
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		return String.format(Locale.ROOT, "%d\t%d\t%s\t%d\t%s\t%.3f\t%d\t%d\t%d\t%s", r.index, r.seed, r.dt, r.scale,
+				Double.isNaN(r.factor) ? "-" : r.factor, simTime, diets[Diet.HERBIVORE.ordinal()],
+				diets[Diet.CARNIVORE.ordinal()], millis, status.replace('\t', ' ').replace('\n', ' '));
+	}
+
+	private static List<Double> values(JSONObject spec, String key, double def) {
+		List<Double> values = new ArrayList<>();
+		JSONArray a = spec.optJSONArray(key);
+		if (a == null || a.length() == 0)
+			values.add(def);
+		else
+			for (int i = 0; i < a.length(); i++)
+				values.add(a.getDouble(i));
+		return values;
+	}
+
+	public static class Run {
+		private final int index;
+		private final long seed;
+		private final double dt;
+		private final int scale;
+		private final double factor;
+
+		private Run(int index, long seed, double dt, int scale, double factor) {
+			this.index = index;
+			this.seed = seed;
+			this.dt = dt;
+			this.scale = scale;
+			this.factor = factor;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public double getDeltaTime() {
+			return dt;
+		}
+
+		public int getScale() {
+			return scale;
+		}
+
+		// NaN when the regions keep their own factor
+		public double getFactor() {
+			return factor;
+		}
+
+		public String getName() {
+			return String.format("run-%05d", index);
+		}
+
+		// a copy of the scenario with the values of this run
+		private JSONObject apply(JSONObject scenario) {
+			JSONObject input = new JSONObject(scenario.toString());
+			JSONArray animals = input.getJSONArray("animals");
+			for (int i = 0; i < animals.length(); i++) {
+				JSONObject a = animals.getJSONObject(i);
+				a.put("amount", a.getInt("amount") * scale);
+			}
+			JSONArray regions = input.optJSONArray("regions");
+			if (regions != null && !Double.isNaN(factor)) {
+				for (int i = 0; i < regions.length(); i++) {
+					JSONObject spec = regions.getJSONObject(i).getJSONObject("spec");
+					if ("dynamic".equals(spec.optString("type"))) {
+						JSONObject data = spec.optJSONObject("data");
+						if (data == null) {
+							data = new JSONObject();
+							spec.put("data", data);
+						}
+						data.put(DynamicSupplyRegionBuilder.FACTOR_KEY, factor);
+					}
+				}
+			}
+			return input;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package simulator.factories;
 
+import java.util.function.Supplier;
+
 import org.json.JSONObject;
 
 public abstract class Builder<T> {
@@ -38,4 +40,10 @@ public abstract class Builder<T> {
 	}
 
 	protected abstract T createInstance(JSONObject data);
+
+	// Parses data once and returns what creates instances from it, so that many
+	// instances of the same spec don't parse it again every time
+	protected Supplier<? extends T> compile(JSONObject data) {
+		return () -> createInstance(data);
+	}
 }
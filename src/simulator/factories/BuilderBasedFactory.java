@@ -1,10 +1,12 @@
 package simulator.factories;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.json.JSONObject;
 
@@ -32,19 +34,37 @@ public class BuilderBasedFactory<T> implements Factory<T> {
 
     @Override
     public T createInstance(JSONObject info) throws IllegalArgumentException {
+        return getBuilder(info).createInstance(getData(info));
+    }
+
+    // the spec is looked up and parsed once, see Builder.compile
+    @Override
+    public List<T> createInstances(JSONObject info, int n) throws IllegalArgumentException {
+        if (n < 0)
+            throw new IllegalArgumentException("The number of instances cannot be negative");
+        Supplier<? extends T> template = getBuilder(info).compile(getData(info));
+        List<T> instances = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            instances.add(template.get());
+        return instances;
+    }
+
+    @Override
+    public List<JSONObject> getInfo() {
+        return Collections.unmodifiableList(buildersInfo);
+    }
+
+    private Builder<T> getBuilder(JSONObject info) {
         if (info == null)
             throw new IllegalArgumentException("’info’ cannot be null");
 
         Builder<T> b = builders.get(info.getString("type"));
         if (b == null)
             throw new IllegalArgumentException("Unrecognized ‘info’:" + info);
-
-        JSONObject jo = info.has("data") ? info.getJSONObject("data") : new JSONObject();
-        return b.createInstance(jo);
+        return b;
     }
 
-    @Override
-    public List<JSONObject> getInfo() {
-        return Collections.unmodifiableList(buildersInfo);
+    private static JSONObject getData(JSONObject info) {
+        return info.has("data") ? info.getJSONObject("data") : new JSONObject();
     }
 }
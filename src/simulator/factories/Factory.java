@@ -1,5 +1,6 @@
 package simulator.factories;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.json.JSONObject;
@@ -7,4 +8,12 @@ import org.json.JSONObject;
 public interface Factory<T> {
 	T createInstance(JSONObject info) throws IllegalArgumentException;
 	List<JSONObject> getInfo();
+
+	// n instances of the same info, in order
+	default List<T> createInstances(JSONObject info, int n) throws IllegalArgumentException {
+		List<T> instances = new ArrayList<>(n);
+		for (int i = 0; i < n; i++)
+			instances.add(createInstance(info));
+		return instances;
+	}
 }
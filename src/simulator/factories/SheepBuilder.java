@@ -1,5 +1,7 @@
 package simulator.factories;
 
+import java.util.function.Supplier;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -29,27 +31,39 @@ public class SheepBuilder extends Builder<Animal> {
 
 	@Override
 	protected Sheep createInstance(JSONObject data) throws IllegalArgumentException {
+		return compile(data).get();
+	}
+
+	// the sheep of a template share their strategies, which are stateless, and
+	// only draw their position
+	@Override
+	protected Supplier<Sheep> compile(JSONObject data) throws IllegalArgumentException {
 		JSONObject mateJ = data.has(MATE_STRATEGY_KEY) ? data.getJSONObject(MATE_STRATEGY_KEY) : DEFAULT_SELECTION_STRATEGY;
 		JSONObject huntJ = data.has(DANGER_STRATEGY_KEY) ? data.getJSONObject(DANGER_STRATEGY_KEY) : DEFAULT_SELECTION_STRATEGY;
 		SelectionStrategy mate = selectionStrategyFactory.createInstance(mateJ);
 		SelectionStrategy danger = selectionStrategyFactory.createInstance(huntJ);
 		JSONObject position = data.optJSONObject("pos");
-		Vector2D pos = null;
-		if (position != null) {
-			try {
-				JSONArray xRange = position.getJSONArray("x_range");
-				JSONArray yRange = position.getJSONArray("y_range");
-				if (xRange.length() != 2|| yRange.length() != 2) {
-					throw new IllegalArgumentException("x_range or y_range have to have exactly two values");
-				}
-				double x = Utils.randomGenerator.nextDouble(xRange.getDouble(0), xRange.getDouble(1));
-				double y = Utils.randomGenerator.nextDouble(yRange.getDouble(0), yRange.getDouble(1));
-				pos = new Vector2D(x, y);
-			}catch (JSONException je){
-				throw new IllegalArgumentException(je);
+		if (position == null)
+			return () -> new Sheep(mate, danger, null);
+		double minX, maxX, minY, maxY;
+		try {
+			JSONArray xRange = position.getJSONArray("x_range");
+			JSONArray yRange = position.getJSONArray("y_range");
+			if (xRange.length() != 2|| yRange.length() != 2) {
+				throw new IllegalArgumentException("x_range or y_range have to have exactly two values");
 			}
+			minX = xRange.getDouble(0);
+			maxX = xRange.getDouble(1);
+			minY = yRange.getDouble(0);
+			maxY = yRange.getDouble(1);
+		}catch (JSONException je){
+			throw new IllegalArgumentException(je);
 		}
-		return new Sheep(mate, danger, pos);
+		return () -> {
+			double x = Utils.getRandomGenerator().nextDouble(minX, maxX);
+			double y = Utils.getRandomGenerator().nextDouble(minY, maxY);
+			return new Sheep(mate, danger, new Vector2D(x, y));
+		};
 	}
 
 	@Override
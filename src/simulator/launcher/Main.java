@@ -1,10 +1,12 @@
 package simulator.launcher;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +21,8 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import simulator.control.Controller;
+import simulator.control.ScenarioReader;
+import simulator.control.Sweep;
 import simulator.factories.Builder;
 import simulator.factories.BuilderBasedFactory;
 import simulator.factories.DefaultRegionBuilder;
@@ -41,19 +45,40 @@ public class Main {
 	// Options
 	private static final Double DEFAULT_TIME = 10.0; // seconds
 	private static final Double DEFAULT_DELTA_TIME = 0.03; // seconds
+	private static final Integer DEFAULT_THREADS = 0;
+	private static final Integer DEFAULT_SNAPSHOT_EVERY = 0;
+	private static final String DEFAULT_SNAPSHOT_FILE = "snapshots.ndjson";
+	private static final Integer DEFAULT_FRAME_SKIP = 1;
+	private static final Double DEFAULT_MAX_FPS = 0.0;
+	private static final Integer DEFAULT_CHECKPOINT_EVERY = 0;
+	private static final String DEFAULT_CHECKPOINT_FILE = "checkpoint.bin";
+	private static final String DEFAULT_SWEEP_DIR = "sweep";
+	private static final Integer DEFAULT_SWEEP_JOBS = Runtime.getRuntime().availableProcessors();
 
 	private static Double time = null;
 	public static Double deltaTime = null;
 	private static String inFile = null;
 	private static String outFile = null;
 	private static boolean sv = false;
+	private static int frameSkip = DEFAULT_FRAME_SKIP;
+	private static double maxFps = DEFAULT_MAX_FPS;
+	private static int threads = DEFAULT_THREADS;
+	private static int snapshotEvery = DEFAULT_SNAPSHOT_EVERY;
+	private static String snapshotFile = null;
+	private static int checkpointEvery = DEFAULT_CHECKPOINT_EVERY;
+	private static String checkpointFile = null;
+	private static String restoreFile = null;
+	private static String sweepFile = null;
+	private static String sweepDir = null;
+	private static int sweepJobs = DEFAULT_SWEEP_JOBS;
+	private static boolean verbose = false;
 
 	// factories
 	public static Factory<Animal> animalFactory;
 	public static Factory<Region> regionFactory;
 
 	public static void main(String[] args) {
-		Utils.randomGenerator.setSeed(2147483647L);
+		Utils.setSeed(2147483647L);
 		try {
 			initFactories();
 			parseArgs(args);
@@ -79,7 +104,13 @@ public class Main {
 			parseInFileOption(line);
 			parseOutFileOption(line);
 			parseSvOption(line);
+			parseFrameOptions(line);
 			parseTimeOption(line);
+			parseThreadsOption(line);
+			parseSnapshotOptions(line);
+			parseCheckpointOptions(line);
+			parseSweepOptions(line);
+			parseVerboseOption(line);
 
 			String[] remaining = line.getArgs();
 			if (remaining.length > 0) {
@@ -124,6 +155,57 @@ public class Main {
 		// simple viewer
 		cmdLineOptions.addOption(
 				Option.builder("sv").longOpt("simple-viewer").desc("Show the viewer window in console mode.").build());
+		// viewer frames
+		cmdLineOptions.addOption(Option.builder("fs").longOpt("frame-skip").hasArg()
+				.desc("With the viewer, draw only every N steps and run the simulation without waiting for it. Default value: "
+						+ DEFAULT_FRAME_SKIP + ".")
+				.build());
+		cmdLineOptions.addOption(Option.builder("mf").longOpt("max-fps").hasArg()
+				.desc("With the viewer, draw at most this many frames per second and run the simulation without waiting for it, 0 for no limit. Default value: "
+						+ DEFAULT_MAX_FPS + ".")
+				.build());
+		// threads
+		cmdLineOptions.addOption(Option.builder("th").longOpt("threads").hasArg()
+				.desc("Number of threads updating the animals, 0 updates them one after the other. With 1 or more the result does not depend on the number of threads. Default value: "
+						+ DEFAULT_THREADS + ".")
+				.build());
+		// snapshots
+		cmdLineOptions.addOption(Option.builder("se").longOpt("snapshot-every").hasArg()
+				.desc("Write the state of the simulation every N steps, one JSON line per frame, 0 writes no frames. Default value: "
+						+ DEFAULT_SNAPSHOT_EVERY + ".")
+				.build());
+		cmdLineOptions.addOption(Option.builder("sf").longOpt("snapshot-file").hasArg()
+				.desc("File where the snapshots are written. Default value: " + DEFAULT_SNAPSHOT_FILE + ".").build());
+
+		// checkpoints
+		cmdLineOptions.addOption(Option.builder("ce").longOpt("checkpoint-every").hasArg()
+				.desc("Save the whole state of the simulation every N steps, 0 saves nothing. Default value: "
+						+ DEFAULT_CHECKPOINT_EVERY + ".")
+				.build());
+		cmdLineOptions.addOption(Option.builder("cf").longOpt("checkpoint-file").hasArg()
+				.desc("File where the checkpoints are saved, each one replacing the previous. Default value: "
+						+ DEFAULT_CHECKPOINT_FILE + ".")
+				.build());
+		cmdLineOptions.addOption(Option.builder("r").longOpt("restore").hasArg()
+				.desc("Continue the simulation saved in this checkpoint file instead of starting the input one.")
+				.build());
+		// sweep
+		cmdLineOptions.addOption(Option.builder("sw").longOpt("sweep").hasArg()
+				.desc("Sweep spec file. Runs the input scenario once for every combination of the seeds and parameters listed in it, see simulator.control.Sweep.")
+				.build());
+		cmdLineOptions.addOption(Option.builder("sd").longOpt("sweep-dir").hasArg()
+				.desc("Folder where the output of every run and the summary of a sweep are written. Default value: "
+						+ DEFAULT_SWEEP_DIR + ".")
+				.build());
+		cmdLineOptions.addOption(Option.builder("sj").longOpt("sweep-jobs").hasArg()
+				.desc("Number of simulations of a sweep running at the same time. Default value: the number of processors ("
+						+ DEFAULT_SWEEP_JOBS + ").")
+				.build());
+
+		// verbose
+		cmdLineOptions.addOption(Option.builder("v").longOpt("verbose")
+				.desc("At the end of a batch run, print to the standard error the average time per step spent in each phase of the simulation.")
+				.build());
 
 		return cmdLineOptions;
 	}
@@ -161,6 +243,25 @@ public class Main {
 		sv = line.hasOption("sv");
 	}
 
+	private static void parseFrameOptions(CommandLine line) throws ParseException {
+		String fs = line.getOptionValue("fs", DEFAULT_FRAME_SKIP.toString());
+		try {
+			frameSkip = Integer.parseInt(fs);
+			if (frameSkip < 1)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for frame-skip: " + fs);
+		}
+		String mf = line.getOptionValue("mf", DEFAULT_MAX_FPS.toString());
+		try {
+			maxFps = Double.parseDouble(mf);
+			if (maxFps < 0 || Double.isNaN(maxFps))
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for max-fps: " + mf);
+		}
+	}
+
 	private static void parseDeltaTimeOption(CommandLine line) throws ParseException {
 		String dt = line.getOptionValue("dt", DEFAULT_DELTA_TIME.toString());
 		try {
@@ -171,6 +272,59 @@ public class Main {
 		}
 	}
 
+	private static void parseThreadsOption(CommandLine line) throws ParseException {
+		String th = line.getOptionValue("th", DEFAULT_THREADS.toString());
+		try {
+			threads = Integer.parseInt(th);
+			if (threads < 0)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for threads: " + th);
+		}
+	}
+
+	private static void parseSnapshotOptions(CommandLine line) throws ParseException {
+		String se = line.getOptionValue("se", DEFAULT_SNAPSHOT_EVERY.toString());
+		try {
+			snapshotEvery = Integer.parseInt(se);
+			if (snapshotEvery < 0)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for snapshot-every: " + se);
+		}
+		snapshotFile = line.getOptionValue("sf", DEFAULT_SNAPSHOT_FILE);
+	}
+
+	private static void parseCheckpointOptions(CommandLine line) throws ParseException {
+		String ce = line.getOptionValue("ce", DEFAULT_CHECKPOINT_EVERY.toString());
+		try {
+			checkpointEvery = Integer.parseInt(ce);
+			if (checkpointEvery < 0)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for checkpoint-every: " + ce);
+		}
+		checkpointFile = line.getOptionValue("cf", DEFAULT_CHECKPOINT_FILE);
+		restoreFile = line.getOptionValue("r");
+	}
+
+	private static void parseSweepOptions(CommandLine line) throws ParseException {
+		sweepFile = line.getOptionValue("sw");
+		sweepDir = line.getOptionValue("sd", DEFAULT_SWEEP_DIR);
+		String sj = line.getOptionValue("sj", DEFAULT_SWEEP_JOBS.toString());
+		try {
+			sweepJobs = Integer.parseInt(sj);
+			if (sweepJobs < 1)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid value for sweep-jobs: " + sj);
+		}
+	}
+
+	private static void parseVerboseOption(CommandLine line) {
+		verbose = line.hasOption("v");
+	}
+
 	private static void initFactories() {
 		Factory<SelectionStrategy> selectionStrategyFactory;
 		List<Builder<SelectionStrategy>> selectionStrategyBuilders = new ArrayList<>();
@@ -194,15 +348,42 @@ public class Main {
 		return new JSONObject(new JSONTokener(in));
 	}
 
-	private static void startBatchMode() throws IOException {
-		JSONObject input = loadJSONFile(new FileInputStream(inFile));
+	private static void startBatchMode() throws IOException, InterruptedException {
+		if (sweepFile != null) {
+			Sweep sweep = new Sweep(loadJSONFile(new FileInputStream(inFile)),
+					loadJSONFile(new FileInputStream(sweepFile)), time, deltaTime, animalFactory, regionFactory);
+			sweep.run(sweepJobs, threads, new File(sweepDir));
+			return;
+		}
+		Simulator simulator;
+		if (restoreFile != null) {
+			JSONObject input = loadJSONFile(new FileInputStream(inFile));
+			simulator = new Simulator(input.getInt("cols"), input.getInt("rows"), input.getInt("width"),
+					input.getInt("height"), animalFactory, regionFactory);
+		} else
+			// the animals are created while the rest of the file is parsed
+			simulator = new ScenarioReader(Paths.get(inFile)).load(animalFactory, regionFactory);
 		OutputStream oStream;
 		oStream = outFile != null ? new FileOutputStream(outFile) : System.out;
-		Simulator simulator = new Simulator(input.getInt("cols"), input.getInt("rows"), input.getInt("width"),
-				input.getInt("height"), animalFactory, regionFactory);
+		simulator.setParallelism(threads);
 		Controller controller = new Controller(simulator);
-		controller.loadData(input);
-		controller.run(time, deltaTime, sv, oStream);
+		controller.setFrameSkip(frameSkip);
+		controller.setMaxFps(maxFps);
+		controller.setCheckpoints(checkpointEvery, Paths.get(checkpointFile));
+		try {
+			if (restoreFile != null)
+				controller.restore(Paths.get(restoreFile));
+			if (snapshotEvery > 0) {
+				try (OutputStream frames = new FileOutputStream(snapshotFile)) {
+					controller.run(time, deltaTime, sv, oStream, snapshotEvery, frames);
+				}
+			} else
+				controller.run(time, deltaTime, sv, oStream);
+		} finally {
+			controller.close();
+		}
+		if (verbose)
+			System.err.println("Time per step: " + simulator.getStepTimes());
 
 		oStream.close();
 	}
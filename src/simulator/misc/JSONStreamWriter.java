@@ -0,0 +1,88 @@
+package simulator.misc;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.json.JSONObject;
+
+/**
+ * Writes JSON token by token, without building the tree first. Strings and
+ * numbers are formatted by org.json, so the text is the same that
+ * {@link JSONObject#toString()} produces for the same values in the same order.
+ */
+public class JSONStreamWriter implements Flushable {
+	private final Writer _out;
+	// true right after '{', '[' or a key, when the next token needs no comma
+	private boolean _first;
+
+	public JSONStreamWriter(Writer out) {
+		_out = out;
+		_first = true;
+	}
+
+	public JSONStreamWriter beginObject() throws IOException {
+		separator();
+		_out.write('{');
+		_first = true;
+		return this;
+	}
+
+	public JSONStreamWriter endObject() throws IOException {
+		_out.write('}');
+		_first = false;
+		return this;
+	}
+
+	public JSONStreamWriter beginArray() throws IOException {
+		separator();
+		_out.write('[');
+		_first = true;
+		return this;
+	}
+
+	public JSONStreamWriter endArray() throws IOException {
+		_out.write(']');
+		_first = false;
+		return this;
+	}
+
+	public JSONStreamWriter key(String name) throws IOException {
+		separator();
+		JSONObject.quote(name, _out);
+		_out.write(':');
+		_first = true;
+		return this;
+	}
+
+	public JSONStreamWriter value(String s) throws IOException {
+		separator();
+		JSONObject.quote(s, _out);
+		_first = false;
+		return this;
+	}
+
+	public JSONStreamWriter value(double d) throws IOException {
+		separator();
+		_out.write(JSONObject.numberToString(d));
+		_first = false;
+		return this;
+	}
+
+	public JSONStreamWriter value(int i) throws IOException {
+		separator();
+		_out.write(Integer.toString(i));
+		_first = false;
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		_out.flush();
+	}
+
+	private void separator() throws IOException {
+		if (!_first)
+			_out.write(',');
+	}
+}
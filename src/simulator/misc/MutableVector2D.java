@@ -0,0 +1,70 @@
+package simulator.misc;
+
+/**
+ * A {@link Vector2D} that can be changed in place. It is meant for positions
+ * that change every step, so that moving does not create new vectors. The
+ * methods inherited from Vector2D still return new objects.
+ */
+public class MutableVector2D extends Vector2D {
+
+	// create the zero vector
+	public MutableVector2D() {
+		super();
+	}
+
+	// copy constructor
+	public MutableVector2D(Vector2D v) {
+		super(v);
+	}
+
+	public MutableVector2D(double x, double y) {
+		super(x, y);
+	}
+
+	public MutableVector2D set(double x, double y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	public MutableVector2D set(Vector2D v) {
+		x = v.x;
+		y = v.y;
+		return this;
+	}
+
+	// this = this + that
+	public MutableVector2D add(Vector2D that) {
+		x += that.x;
+		y += that.y;
+		return this;
+	}
+
+	// this = this * factor
+	public MutableVector2D scaleInPlace(double factor) {
+		x *= factor;
+		y *= factor;
+		return this;
+	}
+
+	// move this a distance of step in the direction of target, a negative step
+	// moves it away from target
+	public MutableVector2D moveTowards(Vector2D target, double step) {
+		double dx = target.x - x;
+		double dy = target.y - y;
+		double m = Math.sqrt(dx * dx + dy * dy);
+		if (m > 0.0) {
+			double inv = 1.0 / m;
+			x += dx * inv * step;
+			y += dy * inv * step;
+		}
+		return this;
+	}
+
+	// same as adjust, but in place
+	public MutableVector2D wrap(int width, int height) {
+		x = wrap(x, width);
+		y = wrap(y, height);
+		return this;
+	}
+}
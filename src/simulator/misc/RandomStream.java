@@ -0,0 +1,78 @@
+package simulator.misc;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Splittable pseudo-random stream (SplitMix64, the algorithm behind
+ * {@link java.util.SplittableRandom}). Unlike SplittableRandom its state can be
+ * read and restored, so that a simulation can be saved and resumed.
+ * <p>
+ * A stream is not thread-safe: every entity owns its stream and derives the
+ * streams of the entities it creates with {@link #split()}.
+ */
+public final class RandomStream implements RandomGenerator {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long _seed;
+	private long _gamma;
+
+	public RandomStream() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	public RandomStream(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	public RandomStream(long seed, long gamma) {
+		if ((gamma & 1L) == 0)
+			throw new IllegalArgumentException("The gamma of a random stream must be odd");
+		_seed = seed;
+		_gamma = gamma;
+	}
+
+	public long getSeed() {
+		return _seed;
+	}
+
+	public long getGamma() {
+		return _gamma;
+	}
+
+	// continues from a state read with getSeed and getGamma
+	public void setState(long seed, long gamma) {
+		if ((gamma & 1L) == 0)
+			throw new IllegalArgumentException("The gamma of a random stream must be odd");
+		_seed = seed;
+		_gamma = gamma;
+	}
+
+	// return a new stream, statistically independent of this one
+	public RandomStream split() {
+		return new RandomStream(nextLong(), mixGamma(nextSeed()));
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	private long nextSeed() {
+		return _seed += _gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
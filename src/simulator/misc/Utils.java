@@ -1,14 +1,28 @@
 package simulator.misc;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Utils {
-	public static final Random randomGenerator = new Random();
+	// Master stream of each thread, animals and regions split their own stream
+	// from the one of the thread that creates them
+	private static final ThreadLocal<RandomStream> masterStream = ThreadLocal.withInitial(RandomStream::new);
 
 	// So that there is no instance of this class
 	private Utils() {
 	}
 
+	public static void setSeed(long seed) {
+		masterStream.set(new RandomStream(seed));
+	}
+
+	public static RandomStream getRandomGenerator() {
+		return masterStream.get();
+	}
+
+	public static RandomStream newRandomStream() {
+		return masterStream.get().split();
+	}
+
 	public static double constrainValueInRange(double value, double min, double max) {
 		assert (max >= min);
 		value = Math.min(value, max);
@@ -23,15 +37,16 @@ public class Utils {
 		return value;
 	}
 
-	public static double getRandomizedParameter(double value, double tolerance) throws IllegalArgumentException {
+	public static double getRandomizedParameter(double value, double tolerance, RandomGenerator random)
+			throws IllegalArgumentException {
 		if (tolerance <= 0 || tolerance > 1)
 			throw new IllegalArgumentException("Invalid tolerance value");
-		double t = (randomGenerator.nextDouble() - 0.5) * 2 * tolerance;
+		double t = (random.nextDouble() - 0.5) * 2 * tolerance;
 		return value * (1 + t);
 	}
 
-	public static Vector2D getRandomPosition(double width, double height) {
-		return new Vector2D(randomGenerator.nextDouble(width), randomGenerator.nextDouble(height));
+	public static Vector2D getRandomPosition(double width, double height, RandomGenerator random) {
+		return new Vector2D(random.nextDouble(width), random.nextDouble(height));
 	}
 
 }
@@ -1,5 +1,7 @@
 package simulator.misc;
 
+import java.util.random.RandomGenerator;
+
 import org.json.JSONArray;
 
 public class Vector2D {
@@ -36,7 +38,14 @@ public class Vector2D {
 
 	// return the distance between this and that
 	public double distanceTo(Vector2D that) {
-		return minus(that).magnitude();
+		return Math.sqrt(distanceSqTo(that));
+	}
+
+	// return the squared distance between this and that, cheaper for comparisons
+	public double distanceSqTo(Vector2D that) {
+		double dx = x - that.x;
+		double dy = y - that.y;
+		return dx * dx + dy * dy;
 	}
 
 	// create and return a new object whose value is (this + that)
@@ -65,8 +74,9 @@ public class Vector2D {
 
 	// return the corresponding unit vector
 	public Vector2D direction() {
-		if (magnitude() > 0.0)
-			return scale(1.0 / magnitude());
+		double m = magnitude();
+		if (m > 0.0)
+			return scale(1.0 / m);
 		else
 			return new Vector2D(this);
 	}
@@ -96,10 +106,10 @@ public class Vector2D {
 		return angle * 180.0 / Math.PI;
 	}
 
-	public static Vector2D getRandomVector(double min, double max) {
+	public static Vector2D getRandomVector(double min, double max, RandomGenerator random) {
 		assert (max >= min);
-		double x = min + Utils.randomGenerator.nextDouble(max - min);
-		double y = min + Utils.randomGenerator.nextDouble(max - min);
+		double x = min + random.nextDouble(max - min);
+		double y = min + random.nextDouble(max - min);
 		assert (x >= min && x <= max);
 		assert (y >= min && y <= max);
 		return new Vector2D(x, y);
@@ -113,20 +123,16 @@ public class Vector2D {
 	}
 
 	public Vector2D adjust(int width, int height) {
-		double xNew = this.x;
-		double yNew = this.y;
-
-		while (xNew > width)
-			xNew = (xNew - width);
-		while (xNew < 0)
-			xNew = (xNew + width);
-
-		while (yNew > height)
-			yNew = (yNew - height);
-		while (yNew < 0)
-			yNew = (yNew + height);
+		return new Vector2D(wrap(x, width), wrap(y, height));
+	}
 
-		return new Vector2D(xNew, yNew);
+	// wrap a coordinate around [0, size) with a floor-mod
+	static double wrap(double v, int size) {
+		if (v >= 0 && v < size)
+			return v;
+		double w = v - size * Math.floor(v / size);
+		// for tiny negative values the rounding can give exactly size
+		return w < size ? w : 0.0;
 	}
 
 	@Override
@@ -2,13 +2,16 @@ package simulator.model;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import simulator.misc.JSONStreamWriter;
+import simulator.misc.MutableVector2D;
+import simulator.misc.RandomStream;
 import simulator.misc.Utils;
 import simulator.misc.Vector2D;
 import simulator.view.SimpleObjectViewer.ObjInfo;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public abstract class Animal implements Entity, AnimalInfo {
@@ -19,17 +22,39 @@ public abstract class Animal implements Entity, AnimalInfo {
     protected String _geneticCode;
     protected Diet _diet;
     protected State _state;
-    protected Vector2D _pos;
-    protected Vector2D _dest;
+    protected MutableVector2D _pos;
+    protected MutableVector2D _dest;
     protected double _energy;
     protected double _speed;
     protected double _age;
     protected double _desire;
     protected double _sightRange;
-    protected Animal _mateTarget;
+    // Other animals are referred to by handles, see AnimalMapView.handleOf, so
+    // that an animal that has left the simulation is not kept in memory
+    protected static final long NO_HANDLE = -1L;
+    protected long _mateTarget;
     protected Animal _baby;
     protected AnimalMapView _regionManager;
     protected SelectionStrategy _mateStrategy;
+    protected RandomStream _random;
+    // given by the region manager while the animal is registered, -1 otherwise
+    int _id = -1;
+    // bucket of the spatial grid holding this animal, and its slot in it
+    int _cell = -1;
+    int _cellSlot;
+    // region holding the animal and its position in the animals of the region
+    Region _region;
+    int _regionSlot;
+    // State seen by other animals during a buffered step, see beginBufferedStep
+    private boolean _buffered;
+    private final MutableVector2D _seenPos = new MutableVector2D();
+    private State _seenState;
+    private double _seenAge;
+    private double _seenEnergy;
+    // Interactions with other animals postponed until the end of a buffered step
+    private Animal _pendingKill;
+    private Animal _pendingMate;
+    private boolean _pendingFeed;
 
     protected Animal(String geneticCode, Diet diet, double sightRange, double initSpeed,
                      SelectionStrategy mateStrategy, Vector2D pos) throws IllegalArgumentException {
@@ -45,15 +70,16 @@ public abstract class Animal implements Entity, AnimalInfo {
         this._geneticCode = geneticCode;
         this._diet = diet;
         this._sightRange = sightRange;
-        this._pos = pos;
+        this._pos = pos != null ? new MutableVector2D(pos) : null;
         this._mateStrategy = mateStrategy;
-        this._speed = Utils.getRandomizedParameter(initSpeed, 0.1);
+        this._random = Utils.newRandomStream();
+        this._speed = Utils.getRandomizedParameter(initSpeed, 0.1, _random);
         this._age = 0.0;
         this._desire = 0.0;
         this._energy = 100.0;
         this._dest = null;
         this._baby = null;
-        this._mateTarget = null;
+        this._mateTarget = NO_HANDLE;
         this._regionManager = null;
         this._state = State.NORMAL;
     }
@@ -66,7 +92,7 @@ public abstract class Animal implements Entity, AnimalInfo {
 
         _dest = null;
         _baby = null;
-        _mateTarget = null;
+        _mateTarget = NO_HANDLE;
         _regionManager = null;
 
         _state = State.NORMAL;
@@ -74,17 +100,24 @@ public abstract class Animal implements Entity, AnimalInfo {
         _age = 0.0;
         _desire = 0.0;
 
+        // the parent is the one being updated, so its stream is safe to split here
+        _random = p1._random.split();
         _geneticCode = p1._geneticCode;
         _diet = p1._diet;
-        _mateStrategy = Utils.randomGenerator.nextDouble() < PROBABILITY_TO_INHERIT_WHICH_MATE_STRATEGY ? p1._mateStrategy : p2._mateStrategy;
-        _energy = (p1._energy + p2._energy) / 2.0;
+        _mateStrategy = _random.nextDouble() < PROBABILITY_TO_INHERIT_WHICH_MATE_STRATEGY ? p1._mateStrategy : p2._mateStrategy;
+        _energy = (p1._energy + p2.get_energy()) / 2.0;
 
-        _pos = p1.get_position().plus(Vector2D.getRandomVector(-1, 1).scale(60.0 * (Utils.randomGenerator.nextGaussian() + 1)));
-        _sightRange = Utils.getRandomizedParameter((p1.get_sightRange() + p2.get_sightRange()) / 2, 0.2);
-        _speed = Utils.getRandomizedParameter((p1.get_speed() + p2.get_speed()) / 2, 0.2);
+        _pos = new MutableVector2D(p1._pos).add(Vector2D.getRandomVector(-1, 1, _random).scale(60.0 * (_random.nextGaussian() + 1)));
+        _sightRange = Utils.getRandomizedParameter((p1.get_sightRange() + p2.get_sightRange()) / 2, 0.2, _random);
+        _speed = Utils.getRandomizedParameter((p1.get_speed() + p2.get_speed()) / 2, 0.2, _random);
     }
 
     // --------- Getters y Setters --------- //
+    @Override
+    public int get_id() {
+        return _id;
+    }
+
     @Override
     public double get_speed() {
         return _speed;
@@ -97,12 +130,12 @@ public abstract class Animal implements Entity, AnimalInfo {
 
     @Override
     public Vector2D get_position() {
-        return _pos;
+        return _buffered ? _seenPos : _pos;
     }
 
     @Override
     public State get_state() {
-        return _state;
+        return _buffered ? _seenState : _state;
     }
 
     @Override
@@ -117,12 +150,12 @@ public abstract class Animal implements Entity, AnimalInfo {
 
     @Override
     public double get_energy() {
-        return _energy;
+        return _buffered ? _seenEnergy : _energy;
     }
 
     @Override
     public double get_age() {
-        return _age;
+        return _buffered ? _seenAge : _age;
     }
 
     @Override
@@ -135,7 +168,15 @@ public abstract class Animal implements Entity, AnimalInfo {
     }
 
     protected Animal get_mateTarget() {
-        return _mateTarget;
+        return resolve(_mateTarget);
+    }
+
+    protected Animal resolve(long handle) {
+        return handle == NO_HANDLE ? null : _regionManager.resolve(handle);
+    }
+
+    protected long handleOf(Animal a) {
+        return a == null ? NO_HANDLE : _regionManager.handleOf(a);
     }
 
     protected AnimalMapView get_regionManager() {
@@ -163,6 +204,16 @@ public abstract class Animal implements Entity, AnimalInfo {
         return new JSONObject(map);
     }
 
+    // same text as asJSON, keys in the order the JSONObject above prints them
+    public void writeJSON(JSONStreamWriter w) throws IOException {
+        w.beginObject();
+        w.key("diet").value(_diet.toString());
+        w.key("state").value(_state.toString());
+        w.key("pos").beginArray().value(_pos.getX()).value(_pos.getY()).endArray();
+        w.key("gcode").value(_geneticCode);
+        w.endObject();
+    }
+
     @Override
     public ObjInfo getObjInfo() {
         return new ObjInfo(_geneticCode, (int) _pos.getX(), (int) _pos.getY(), (int) Math.round(get_age()) + 2);
@@ -175,23 +226,106 @@ public abstract class Animal implements Entity, AnimalInfo {
         int height = regionManager.get_height();
 
         if (_pos == null)
-            _pos = Utils.getRandomPosition(width, height);
+            _pos = new MutableVector2D(Utils.getRandomPosition(width, height, _random));
         else
-            _pos = _pos.adjust(width, height);
+            _pos.wrap(width, height);
 
-        _dest = Utils.getRandomPosition(width, height);
+        _dest = new MutableVector2D(Utils.getRandomPosition(width, height, _random));
     }
 
     protected void move(double speed) {
-        _pos = _pos.plus(_dest.minus(_pos).direction().scale(speed)).adjust(_regionManager.get_width(), _regionManager.get_height());
+        _pos.moveTowards(_dest, speed).wrap(_regionManager.get_width(), _regionManager.get_height());
+    }
+
+    protected void setRandomDestination(double width, double height) {
+        _dest.set(_random.nextDouble(width), _random.nextDouble(height));
     }
 
     public boolean isAlive() {
         return _state != State.DEAD;
     }
 
+    // Whether other animals see this one alive, it may have died during a buffered step
+    protected boolean isSeenAlive() {
+        return get_state() != State.DEAD;
+    }
+
     protected void die() {
+        if (_state == State.DEAD)
+            return;
         _state = State.DEAD;
+        // during a buffered step the death is reported by endBufferedStep, in
+        // population order
+        if (!_buffered && _regionManager != null)
+            _regionManager.onAnimalDied(this);
+    }
+
+    protected abstract void alterEnergy(double energy);
+
+    protected void onKill(Animal prey) {
+    }
+
+    protected void kill(Animal prey) {
+        if (_buffered) {
+            _pendingKill = prey;
+        } else {
+            prey.die();
+            onKill(prey);
+        }
+    }
+
+    protected void calmMate(Animal mate) {
+        if (_buffered)
+            _pendingMate = mate;
+        else
+            mate._desire = 0.0;
+    }
+
+    protected void feed(double dt) {
+        if (_buffered)
+            _pendingFeed = true;
+        else
+            alterEnergy(_energy + _regionManager.getFood(this, dt));
+    }
+
+    /**
+     * Starts a buffered step: until {@link #endBufferedStep} other animals see
+     * the state this animal has now, and the changes it makes to other animals or
+     * to its region are postponed. This lets all animals be updated concurrently.
+     */
+    void beginBufferedStep() {
+        _seenPos.set(_pos);
+        _seenState = _state;
+        _seenAge = _age;
+        _seenEnergy = _energy;
+        _buffered = true;
+    }
+
+    /**
+     * Applies the interactions postponed during the buffered step. It has to be
+     * called from a single thread, visiting the animals always in the same order.
+     */
+    void endBufferedStep(double dt) {
+        _buffered = false;
+        if (_seenState != State.DEAD && _state == State.DEAD)
+            _regionManager.onAnimalDied(this);
+        if (_pendingKill != null) {
+            // another hunter may have got it first
+            if (_pendingKill.isAlive()) {
+                _pendingKill.die();
+                onKill(_pendingKill);
+            }
+            _pendingKill = null;
+        }
+        if (_pendingMate != null) {
+            _pendingMate._desire = 0.0;
+            _pendingMate = null;
+        }
+        if (_pendingFeed) {
+            _pendingFeed = false;
+            if (isAlive())
+                feed(dt);
+        }
     }
 
     protected boolean isOutOfBounds(int maxWidth, int maxHeight) {
@@ -200,20 +334,20 @@ public abstract class Animal implements Entity, AnimalInfo {
     }
 
     protected boolean outOfSight(Animal other) {
-        return _pos.distanceTo(other.get_position()) >= _sightRange;
+        return _pos.distanceSqTo(other.get_position()) >= _sightRange * _sightRange;
     }
 
     protected void mateDiedOrWentFar() {
-        if (_mateTarget != null && (!isAlive() || outOfSight(_mateTarget))) {
-            _mateTarget = null;
+        Animal mate = get_mateTarget();
+        if (mate != null && (!isAlive() || outOfSight(mate))) {
+            mate = null;
         }
-        if (_mateTarget == null)
+        if (mate == null)
             findMateTarget();
     }
 
     protected void findMateTarget() {
-        List<Animal> odds = _regionManager.getAnimalsInRange(this, a -> _geneticCode.equals(a._geneticCode) && a != this);
-        _mateTarget = _mateStrategy.select(_baby, odds);
+        _mateTarget = handleOf(_regionManager.selectAnimalInRange(this, _geneticCode, a -> a != this, _mateStrategy));
     }
 
     protected double calcBaseMoveSpeed(double dt) {
@@ -4,6 +4,10 @@ import simulator.misc.Vector2D;
 import simulator.view.SimpleObjectViewer.ObjInfo;
 
 public interface AnimalInfo extends JSONable {
+	// Small non-negative int, unique among the animals of the simulation while
+	// the animal is in it; IDs of removed animals are given to new ones
+	int get_id();
+
 	State get_state();
 
 	Vector2D get_position();
@@ -1,8 +1,44 @@
 package simulator.model;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 public interface AnimalMapView extends MapInfo, FoodSupplier {
+	// the animals that pass filter and are strictly closer to e than its sight
+	// range, wherever their regions are
 	List<Animal> getAnimalsInRange(Animal e, Predicate<Animal> filter);
+
+	void forEachAnimalInRange(Animal e, Predicate<Animal> filter, Consumer<Animal> action);
+
+	// a handle of a, an animal of the map, that does not keep it reachable
+	long handleOf(Animal a);
+
+	// the animal of the handle, or null once it has left the map
+	Animal resolve(long handle);
+
+	// what s selects from getAnimalsInRange(e, filter), without building the list
+	default Animal selectAnimalInRange(Animal e, Predicate<Animal> filter, SelectionStrategy s) {
+		return s.select(e, getAnimalsInRange(e, filter));
+	}
+
+	// same as selectAnimalInRange with a filter on the diet, the map may keep
+	// the animals of each diet apart
+	default Animal selectAnimalInRange(Animal e, Diet diet, Predicate<Animal> filter, SelectionStrategy s) {
+		return s.select(e, this, a -> a.get_diet() == diet && filter.test(a));
+	}
+
+	// same as selectAnimalInRange with a filter on the genetic code
+	default Animal selectAnimalInRange(Animal e, String geneticCode, Predicate<Animal> filter, SelectionStrategy s) {
+		return s.select(e, this, a -> a.get_geneticCode().equals(geneticCode) && filter.test(a));
+	}
+
+	// the closest of getAnimalsInRange(e, filter), without building the list
+	default Animal getClosestAnimalInRange(Animal e, Predicate<Animal> filter) {
+		return new SelectClosest().select(e, getAnimalsInRange(e, filter));
+	}
+
+	// called once when an animal dies
+	default void onAnimalDied(Animal a) {
+	}
 }
@@ -0,0 +1,113 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import simulator.misc.Vector2D;
+import simulator.view.SimpleObjectViewer.ObjInfo;
+
+/**
+ * What an animal showed to the observers at some point, it never changes.
+ */
+final class AnimalSnapshot implements AnimalInfo {
+	private final int _id;
+	private final State _state;
+	private final Vector2D _pos;
+	private final Vector2D _dest;
+	private final String _geneticCode;
+	private final Diet _diet;
+	private final double _speed;
+	private final double _sightRange;
+	private final double _energy;
+	private final double _age;
+	private final boolean _pregnant;
+
+	AnimalSnapshot(Animal a) {
+		_id = a.get_id();
+		_state = a.get_state();
+		_pos = new Vector2D(a.get_position());
+		_dest = a.getDestination() != null ? new Vector2D(a.getDestination()) : null;
+		_geneticCode = a.get_geneticCode();
+		_diet = a.get_diet();
+		_speed = a.get_speed();
+		_sightRange = a.get_sightRange();
+		_energy = a.get_energy();
+		_age = a.get_age();
+		_pregnant = a.isPregnant();
+	}
+
+	@Override
+	public int get_id() {
+		return _id;
+	}
+
+	@Override
+	public State get_state() {
+		return _state;
+	}
+
+	@Override
+	public Vector2D get_position() {
+		return _pos;
+	}
+
+	@Override
+	public String get_geneticCode() {
+		return _geneticCode;
+	}
+
+	@Override
+	public Diet get_diet() {
+		return _diet;
+	}
+
+	@Override
+	public double get_speed() {
+		return _speed;
+	}
+
+	@Override
+	public double get_sightRange() {
+		return _sightRange;
+	}
+
+	@Override
+	public double get_energy() {
+		return _energy;
+	}
+
+	@Override
+	public double get_age() {
+		return _age;
+	}
+
+	@Override
+	public Vector2D getDestination() {
+		return _dest;
+	}
+
+	@Override
+	public boolean isPregnant() {
+		return _pregnant;
+	}
+
+	// same as Animal.getObjInfo and Animal.asJSON
+	@Override
+	public ObjInfo getObjInfo() {
+		return new ObjInfo(_geneticCode, (int) _pos.getX(), (int) _pos.getY(), (int) Math.round(_age) + 2);
+	}
+
+	@Override
+	public JSONObject asJSON() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("pos", new JSONArray(Arrays.asList(_pos.getX(), _pos.getY())));
+		map.put("gcode", _geneticCode);
+		map.put("diet", _diet.toString());
+		map.put("state", _state.toString());
+		return new JSONObject(map);
+	}
+}
@@ -0,0 +1,353 @@
+package simulator.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Delivers the notifications of a simulator to another observer on a thread
+ * of its own, through a queue of events. The population, the map and its
+ * regions are copied when the event is queued (see
+ * {@link PopulationView#snapshot()}), so the observer can read them at any
+ * time; the observer gets the copies, never the live objects. The copies are
+ * made once per step and shared by every event and observer that needs them.
+ * <p>
+ * At most capacity events wait in the queue, and the policy decides what
+ * happens to a new frame (onAdvanced event) when the observer is that far
+ * behind. The rest of the events are never dropped: when the queue is full
+ * they take the place of the last frame waiting, unless the policy is BLOCK,
+ * and the simulation waits only if there is no such frame.
+ */
+public class AsyncObserver implements EcoSysObserver {
+	public enum Policy {
+		// the new frame is discarded if the queue is full
+		DROP,
+		// the last frame still waiting is discarded and the new one goes to
+		// the end of the queue, if no frame is waiting and the queue is full
+		// the new frame is discarded
+		COALESCE,
+		// the simulation waits until there is room in the queue
+		BLOCK
+	}
+
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private final EcoSysObserver _observer;
+	private final Policy _policy;
+	private final int _capacity;
+	private final ArrayDeque<Event> _queue;
+	private boolean _closed;
+	private final ReentrantLock _lock;
+	private final Condition _notEmpty;
+	private final Condition _notFull;
+	private final Thread _thread;
+
+	// counters, written under the lock
+	private long _queued;
+	private long _delivered;
+	private long _dropped;
+	private long _coalesced;
+	private long _failures;
+	private RuntimeException _firstFailure;
+	// called on the thread of the observer, see setErrorHandler
+	private volatile Consumer<? super RuntimeException> _errorHandler;
+	private double _queuedTime;
+	private double _deliveredTime;
+
+	public AsyncObserver(EcoSysObserver observer, Policy policy) {
+		this(observer, policy, DEFAULT_CAPACITY);
+	}
+
+	public AsyncObserver(EcoSysObserver observer, Policy policy, int capacity) {
+		if (observer == null || policy == null)
+			throw new IllegalArgumentException("An asynchronous observer needs an observer and a policy");
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity of the buffer must be positive");
+		_observer = observer;
+		_policy = policy;
+		_capacity = capacity;
+		_queue = new ArrayDeque<>();
+		_lock = new ReentrantLock();
+		_notEmpty = _lock.newCondition();
+		_notFull = _lock.newCondition();
+		_thread = new Thread(this::deliver, "observer-" + observer.getClass().getSimpleName());
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	public EcoSysObserver getObserver() {
+		return _observer;
+	}
+
+	public Policy getPolicy() {
+		return _policy;
+	}
+
+	// events waiting to be delivered
+	public int getPending() {
+		return (int) locked(() -> _queue.size());
+	}
+
+	// simulation time between the last event queued and the last one delivered
+	public double getLag() {
+		_lock.lock();
+		try {
+			return _queuedTime - _deliveredTime;
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	public long getQueued() {
+		return locked(() -> _queued);
+	}
+
+	public long getDelivered() {
+		return locked(() -> _delivered);
+	}
+
+	public long getDropped() {
+		return locked(() -> _dropped);
+	}
+
+	public long getCoalesced() {
+		return locked(() -> _coalesced);
+	}
+
+	// events whose delivery threw an exception
+	public long getFailures() {
+		return locked(() -> _failures);
+	}
+
+	// the exception thrown by the first event that failed, null if none did
+	public RuntimeException getFirstFailure() {
+		_lock.lock();
+		try {
+			return _firstFailure;
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	// handler gets every exception thrown by the observer, on its thread
+	public void setErrorHandler(Consumer<? super RuntimeException> handler) {
+		_errorHandler = handler;
+	}
+
+	// delivers the events already queued and stops the thread, called by
+	// Simulator.removeObserver
+	public void close() throws InterruptedException {
+		_lock.lock();
+		try {
+			_closed = true;
+			_notEmpty.signalAll();
+			_notFull.signalAll();
+		} finally {
+			_lock.unlock();
+		}
+		_thread.join();
+	}
+
+	@Override
+	public void onRegister(double time, MapInfo map, List<AnimalInfo> animals) {
+		List<AnimalInfo> copy = snapshot(animals);
+		MapInfo mapCopy = snapshot(map);
+		publish(false, time, o -> o.onRegister(time, mapCopy, copy));
+	}
+
+	@Override
+	public void onReset(double time, MapInfo map, List<AnimalInfo> animals) {
+		List<AnimalInfo> copy = snapshot(animals);
+		MapInfo mapCopy = snapshot(map);
+		publish(false, time, o -> o.onReset(time, mapCopy, copy));
+	}
+
+	@Override
+	public void onAnimalAdded(double time, MapInfo map, List<AnimalInfo> animals, AnimalInfo a) {
+		int i = indexOf(animals, a);
+		List<AnimalInfo> copy = snapshot(animals);
+		AnimalInfo aCopy = copy.get(i);
+		MapInfo mapCopy = snapshot(map);
+		publish(false, time, o -> o.onAnimalAdded(time, mapCopy, copy, aCopy));
+	}
+
+	@Override
+	public void onAnimalsAdded(double time, MapInfo map, List<AnimalInfo> animals, List<AnimalInfo> added) {
+		List<AnimalInfo> copy = snapshot(animals);
+		List<AnimalInfo> addedCopy = copy.subList(copy.size() - added.size(), copy.size());
+		MapInfo mapCopy = snapshot(map);
+		publish(false, time, o -> o.onAnimalsAdded(time, mapCopy, copy, addedCopy));
+	}
+
+	@Override
+	public void onRegionSet(int row, int col, MapInfo map, RegionInfo r) {
+		MapInfo mapCopy = snapshot(map);
+		RegionInfo rCopy = r instanceof Region && map instanceof RegionManager
+				? ((RegionManager) map).getSnapshots().region((Region) r)
+				: r;
+		publish(false, Double.NaN, o -> o.onRegionSet(row, col, mapCopy, rCopy));
+	}
+
+	@Override
+	public void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt) {
+		// the copy is not worth making if the frame is going to be dropped
+		if (_policy == Policy.DROP && isFull()) {
+			locked(() -> ++_dropped);
+			return;
+		}
+		List<AnimalInfo> copy = snapshot(animals);
+		MapInfo mapCopy = snapshot(map);
+		publish(true, time, o -> o.onAdvanced(time, mapCopy, copy, dt));
+	}
+
+	// Auxiliary methods
+	private static List<AnimalInfo> snapshot(List<AnimalInfo> animals) {
+		if (animals instanceof PopulationView)
+			return ((PopulationView) animals).snapshot();
+		return new ArrayList<>(animals);
+	}
+
+	// the map and its regions as they are now, shared with the other events
+	// until something changes
+	private static MapInfo snapshot(MapInfo map) {
+		if (map instanceof RegionManager) {
+			RegionManager rm = (RegionManager) map;
+			return rm.getSnapshots().map(rm);
+		}
+		return map;
+	}
+
+	private static int indexOf(List<AnimalInfo> animals, AnimalInfo a) {
+		// added animals are normally the last ones
+		for (int i = animals.size() - 1; i >= 0; i--)
+			if (animals.get(i) == a)
+				return i;
+		throw new IllegalArgumentException("The animal added is not in the population");
+	}
+
+	private boolean isFull() {
+		return locked(() -> _queue.size()) >= _capacity;
+	}
+
+	// takes the last frame waiting out of the queue, false if there is none
+	private boolean removeLastFrame() {
+		Iterator<Event> it = _queue.descendingIterator();
+		while (it.hasNext()) {
+			if (it.next().frame) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void publish(boolean frame, double time, Consumer<EcoSysObserver> call) {
+		Event e = new Event(frame, time, call);
+		_lock.lock();
+		try {
+			if (_closed)
+				throw new IllegalStateException("The asynchronous observer is closed");
+			if (frame && _policy == Policy.COALESCE && removeLastFrame()) {
+				_queue.addLast(e);
+				_coalesced++;
+				_queuedTime = time;
+				return;
+			}
+			if (_queue.size() >= _capacity && _policy != Policy.BLOCK) {
+				if (frame) {
+					_dropped++;
+					return;
+				}
+				// other events are not lost, a frame makes room for them
+				if (removeLastFrame())
+					_dropped++;
+			}
+			while (_queue.size() >= _capacity && !_closed)
+				_notFull.awaitUninterruptibly();
+			if (_closed)
+				throw new IllegalStateException("The asynchronous observer is closed");
+			_queue.addLast(e);
+			_queued++;
+			if (!Double.isNaN(time))
+				_queuedTime = time;
+			_notEmpty.signal();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	private void deliver() {
+		while (true) {
+			Event e;
+			_lock.lock();
+			try {
+				while (_queue.isEmpty() && !_closed)
+					_notEmpty.awaitUninterruptibly();
+				if (_queue.isEmpty())
+					return;
+				e = _queue.pollFirst();
+				_notFull.signal();
+			} finally {
+				_lock.unlock();
+			}
+
+			RuntimeException failure = null;
+			try {
+				e.call.accept(_observer);
+			} catch (RuntimeException ex) {
+				failure = ex;
+			}
+
+			if (failure != null) {
+				Consumer<? super RuntimeException> handler = _errorHandler;
+				if (handler != null) {
+					try {
+						handler.accept(failure);
+					} catch (RuntimeException ex) {
+						failure.addSuppressed(ex);
+					}
+				}
+			}
+
+			_lock.lock();
+			try {
+				_delivered++;
+				if (failure != null) {
+					_failures++;
+					if (_firstFailure == null)
+						_firstFailure = failure;
+				}
+				if (!Double.isNaN(e.time))
+					_deliveredTime = e.time;
+			} finally {
+				_lock.unlock();
+			}
+		}
+	}
+
+	private long locked(LongSupplier value) {
+		_lock.lock();
+		try {
+			return value.getAsLong();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	private static class Event {
+		final boolean frame;
+		final double time;
+		final Consumer<EcoSysObserver> call;
+
+		Event(boolean frame, double time, Consumer<EcoSysObserver> call) {
+			this.frame = frame;
+			this.time = time;
+			this.call = call;
+		}
+	}
+}
@@ -0,0 +1,404 @@
+package simulator.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import simulator.misc.MutableVector2D;
+import simulator.misc.RandomStream;
+import simulator.misc.Utils;
+
+/**
+ * Binary image of the whole state of a simulator between two steps: regions
+ * (with their food and random streams), every field of every animal, the order
+ * of the animals in the population, the regions and the cells of the spatial
+ * grid, the simulation time and the master random stream of the thread. A
+ * simulator restored from it goes on exactly as the one saved would have.
+ * <p>
+ * Animals are numbered in the file: the population first, in order, and then
+ * the unborn babies, which are referred to by those numbers (-1 for none).
+ * The IDs of the animals, the state of the ID allocator and the generation of
+ * every ID are saved as well, so restored animals keep their IDs and the
+ * handles other animals hold of them.
+ */
+final class Checkpoint {
+	private static final int MAGIC = 0x45434f43; // "ECOC"
+	private static final int VERSION = 3;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final State[] STATES = State.values();
+
+	private static final byte SHEEP = 0;
+	private static final byte WOLF = 1;
+	private static final byte DEFAULT_REGION = 0;
+	private static final byte DYNAMIC_REGION = 1;
+	private static final byte SELECT_FIRST = 0;
+	private static final byte SELECT_CLOSEST = 1;
+	private static final byte SELECT_YOUNGEST = 2;
+
+	private Checkpoint() {
+	}
+
+	/**
+	 * Writes the state to a temporary file next to file, forces it to the disk
+	 * and then moves it over file, so a crash while saving never leaves a
+	 * broken checkpoint behind.
+	 */
+	static void write(Path file, double time, RegionManager rm, List<Animal> population) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Output out = new Output(ch);
+			write(out, time, rm, population);
+			out.flush();
+			// otherwise the move may reach the disk before the data does
+			ch.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a checkpoint written by {@link #write}, into a new region manager
+	 * and population. The master random stream of the calling thread is
+	 * restored too.
+	 */
+	static Restored read(Path file) throws IOException {
+		ByteBuffer in;
+		// read into the heap and not mapped, a mapping would keep the file open
+		// (and a later move over it failing on Windows) until it is collected
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = ch.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(file + " is too big for a checkpoint");
+			in = ByteBuffer.allocate((int) size);
+			while (in.hasRemaining())
+				if (ch.read(in) < 0)
+					throw new IOException("Unexpected end of " + file);
+			in.flip();
+		}
+		if (in.remaining() < 8 || in.getInt() != MAGIC)
+			throw new IllegalArgumentException(file + " is not a simulator checkpoint");
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+		return read(in);
+	}
+
+	static class Restored {
+		final double time;
+		final RegionManager regionManager;
+		final List<Animal> animals;
+
+		private Restored(double time, RegionManager regionManager, List<Animal> animals) {
+			this.time = time;
+			this.regionManager = regionManager;
+			this.animals = animals;
+		}
+	}
+
+	// Writing
+	private static void write(Output out, double time, RegionManager rm, List<Animal> population)
+			throws IOException {
+		// number the population and the babies
+		Map<Animal, Integer> ids = new IdentityHashMap<>();
+		List<Animal> all = new ArrayList<>(population);
+		for (Animal a : population)
+			ids.put(a, ids.size());
+		for (Animal a : population)
+			if (a._baby != null) {
+				ids.put(a._baby, ids.size());
+				all.add(a._baby);
+			}
+		Map<String, Integer> codes = new HashMap<>();
+		List<String> codeList = new ArrayList<>();
+		for (Animal a : all)
+			if (codes.putIfAbsent(a._geneticCode, codes.size()) == null)
+				codeList.add(a._geneticCode);
+
+		out.ensure(8 + 8 + 16 + 16);
+		out.buf.putInt(MAGIC).putInt(VERSION);
+		out.buf.putDouble(time);
+		RandomStream master = Utils.getRandomGenerator();
+		out.buf.putLong(master.getSeed()).putLong(master.getGamma());
+		out.buf.putInt(rm.get_cols()).putInt(rm.get_rows()).putInt(rm.get_width()).putInt(rm.get_height());
+
+		for (int r = 0; r < rm.get_rows(); r++)
+			for (int c = 0; c < rm.get_cols(); c++)
+				writeRegion(out, rm.getRegion(r, c));
+
+		out.ensure(4);
+		out.buf.putInt(codeList.size());
+		for (String code : codeList)
+			out.putString(code);
+
+		IdAllocator allocator = rm.getIdAllocator();
+		int[] free = allocator.getFree();
+		out.ensure(8);
+		out.buf.putInt(allocator.capacity()).putInt(free.length);
+		for (int id : free) {
+			out.ensure(4);
+			out.buf.putInt(id);
+		}
+		for (int id = 0; id < allocator.capacity(); id++) {
+			out.ensure(4);
+			out.buf.putInt(rm.getGeneration(id));
+		}
+
+		out.ensure(8);
+		out.buf.putInt(all.size()).putInt(population.size());
+		for (Animal a : all)
+			writeAnimal(out, a, ids, codes);
+
+		// the order of the animals in regions, grid cells and deaths decides the
+		// order of later scans, so it is kept as well
+		for (int r = 0; r < rm.get_rows(); r++)
+			for (int c = 0; c < rm.get_cols(); c++)
+				writeIds(out, rm.getRegion(r, c).animals, ids);
+		SpatialGrid grid = rm.getGrid();
+		out.ensure(12);
+		out.buf.putDouble(grid.get_cellSize()).putInt(grid.get_numberOfCells());
+		for (int cell = 0; cell < grid.get_numberOfCells(); cell++)
+			writeIds(out, List.of(grid.block(cell, 0)), ids);
+		writeIds(out, rm.getDeadAnimals(), ids);
+	}
+
+	private static void writeRegion(Output out, Region r) throws IOException {
+		out.ensure(1 + 16 + 16);
+		if (r instanceof DynamicSuppyRegion) {
+			DynamicSuppyRegion d = (DynamicSuppyRegion) r;
+			out.buf.put(DYNAMIC_REGION).putLong(r.random.getSeed()).putLong(r.random.getGamma());
+			out.buf.putDouble(d.food).putDouble(d.factor);
+		} else if (r instanceof DefaultRegion) {
+			out.buf.put(DEFAULT_REGION).putLong(r.random.getSeed()).putLong(r.random.getGamma());
+		} else {
+			throw new IllegalStateException("Cannot checkpoint regions of type " + r.getClass().getName());
+		}
+	}
+
+	private static void writeAnimal(Output out, Animal a, Map<Animal, Integer> ids, Map<String, Integer> codes)
+			throws IOException {
+		if (!(a instanceof Sheep) && !(a instanceof Wolf))
+			throw new IllegalStateException("Cannot checkpoint animals of type " + a.getClass().getName());
+		out.ensure(128);
+		ByteBuffer b = out.buf;
+		boolean sheep = a instanceof Sheep;
+		b.put(sheep ? SHEEP : WOLF);
+		b.putInt(a._id);
+		b.putInt(codes.get(a._geneticCode));
+		b.put((byte) a._state.ordinal());
+		b.putDouble(a._pos.getX()).putDouble(a._pos.getY());
+		b.put((byte) (a._dest != null ? 1 : 0));
+		if (a._dest != null)
+			b.putDouble(a._dest.getX()).putDouble(a._dest.getY());
+		b.putDouble(a._energy).putDouble(a._speed).putDouble(a._age).putDouble(a._desire).putDouble(a._sightRange);
+		b.putLong(a._random.getSeed()).putLong(a._random.getGamma());
+		b.put(strategyTag(a._mateStrategy));
+		b.putLong(a._mateTarget).putInt(id(a._baby, ids));
+		if (sheep) {
+			Sheep s = (Sheep) a;
+			b.put(strategyTag(s.dangerStrategy)).putLong(s.dangerSource);
+		} else {
+			Wolf w = (Wolf) a;
+			b.put(strategyTag(w._huntingStrategy)).putLong(w._huntTarget);
+		}
+	}
+
+	private static void writeIds(Output out, List<Animal> animals, Map<Animal, Integer> ids) throws IOException {
+		out.ensure(4);
+		out.buf.putInt(animals.size());
+		for (Animal a : animals) {
+			out.ensure(4);
+			out.buf.putInt(ids.get(a));
+		}
+	}
+
+	private static int id(Animal a, Map<Animal, Integer> ids) {
+		return a == null ? -1 : ids.get(a);
+	}
+
+	private static byte strategyTag(SelectionStrategy s) {
+		if (s instanceof SelectFirst)
+			return SELECT_FIRST;
+		if (s instanceof SelectClosest)
+			return SELECT_CLOSEST;
+		if (s instanceof SelectYoungest)
+			return SELECT_YOUNGEST;
+		throw new IllegalStateException("Cannot checkpoint selection strategy " + s.getClass().getName());
+	}
+
+	// Reading
+	private static Restored read(ByteBuffer in) {
+		double time = in.getDouble();
+		long masterSeed = in.getLong();
+		long masterGamma = in.getLong();
+		int cols = in.getInt();
+		int rows = in.getInt();
+		RegionManager rm = new RegionManager(cols, rows, in.getInt(), in.getInt());
+
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++)
+				rm.restoreRegion(r, c, readRegion(in));
+
+		String[] codes = new String[in.getInt()];
+		for (int i = 0; i < codes.length; i++) {
+			byte[] bytes = new byte[in.getInt()];
+			in.get(bytes);
+			codes[i] = bytes.length == 0 ? "" : new String(bytes, StandardCharsets.UTF_8).intern();
+		}
+
+		int next = in.getInt();
+		int[] free = new int[in.getInt()];
+		for (int i = 0; i < free.length; i++)
+			free[i] = in.getInt();
+		rm.getIdAllocator().restore(next, free);
+		for (int id = 0; id < next; id++)
+			rm.restoreGeneration(id, in.getInt());
+
+		SelectionStrategy[] strategies = { new SelectFirst(), new SelectClosest(), new SelectYoungest() };
+		Animal[] all = new Animal[in.getInt()];
+		int populationSize = in.getInt();
+		int[] babies = new int[all.length];
+		for (int i = 0; i < all.length; i++)
+			all[i] = readAnimal(in, rm, codes, strategies, babies, i);
+		for (int i = 0; i < all.length; i++) {
+			Animal a = all[i];
+			a._baby = babies[i] < 0 ? null : all[babies[i]];
+			// babies are initialized when they are born
+			if (i < populationSize)
+				a._regionManager = rm;
+		}
+
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++) {
+				Region region = rm.getRegion(r, c);
+				for (int n = in.getInt(); n > 0; n--)
+					region.addAnimal(all[in.getInt()]);
+			}
+		SpatialGrid grid = rm.getGrid();
+		grid.clear(in.getDouble());
+		int cells = in.getInt();
+		if (cells != grid.get_numberOfCells())
+			throw new IllegalArgumentException("The checkpoint does not match the spatial grid");
+		for (int cell = 0; cell < cells; cell++)
+			for (int n = in.getInt(); n > 0; n--)
+				grid.insert(all[in.getInt()], cell);
+		for (int n = in.getInt(); n > 0; n--)
+			rm.onAnimalDied(all[in.getInt()]);
+
+		// restored last, creating the regions and animals above consumed it
+		Utils.getRandomGenerator().setState(masterSeed, masterGamma);
+
+		List<Animal> population = new ArrayList<>(populationSize);
+		for (int i = 0; i < populationSize; i++)
+			population.add(all[i]);
+		return new Restored(time, rm, population);
+	}
+
+	private static Region readRegion(ByteBuffer in) {
+		byte type = in.get();
+		long seed = in.getLong();
+		long gamma = in.getLong();
+		Region r;
+		if (type == DYNAMIC_REGION) {
+			double food = in.getDouble();
+			DynamicSuppyRegion d = new DynamicSuppyRegion(0.0, in.getDouble());
+			// food may have become negative, so it is not passed to the constructor
+			d.food = food;
+			r = d;
+		} else if (type == DEFAULT_REGION) {
+			r = new DefaultRegion();
+		} else {
+			throw new IllegalArgumentException("Unknown region type " + type + " in checkpoint");
+		}
+		r.random.setState(seed, gamma);
+		return r;
+	}
+
+	private static Animal readAnimal(ByteBuffer in, RegionManager rm, String[] codes, SelectionStrategy[] strategies,
+			int[] babies, int i) {
+		byte type = in.get();
+		if (type != SHEEP && type != WOLF)
+			throw new IllegalArgumentException("Unknown animal type " + type + " in checkpoint");
+		int id = in.getInt();
+		String code = codes[in.getInt()];
+		State state = STATES[in.get()];
+		MutableVector2D pos = new MutableVector2D(in.getDouble(), in.getDouble());
+		MutableVector2D dest = in.get() != 0 ? new MutableVector2D(in.getDouble(), in.getDouble()) : null;
+		double energy = in.getDouble();
+		double speed = in.getDouble();
+		double age = in.getDouble();
+		double desire = in.getDouble();
+		double sightRange = in.getDouble();
+		long seed = in.getLong();
+		long gamma = in.getLong();
+		SelectionStrategy mate = strategies[in.get()];
+		long mateTarget = in.getLong();
+		babies[i] = in.getInt();
+		SelectionStrategy other = strategies[in.get()];
+		long otherTarget = in.getLong();
+
+		Animal a = type == SHEEP ? new Sheep(mate, other, pos) : new Wolf(mate, other, pos);
+		a._geneticCode = code;
+		a._state = state;
+		a._pos = pos;
+		a._dest = dest;
+		a._energy = energy;
+		a._speed = speed;
+		a._age = age;
+		a._desire = desire;
+		a._sightRange = sightRange;
+		a._random.setState(seed, gamma);
+		a._mateTarget = mateTarget;
+		if (a instanceof Sheep)
+			((Sheep) a).dangerSource = otherTarget;
+		else
+			((Wolf) a)._huntTarget = otherTarget;
+		if (id >= 0)
+			rm.restoreId(a, id);
+		return a;
+	}
+
+	// Buffered writes through a file channel
+	private static class Output {
+		final FileChannel ch;
+		final ByteBuffer buf;
+
+		Output(FileChannel ch) {
+			this.ch = ch;
+			this.buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+
+		void ensure(int n) throws IOException {
+			if (buf.remaining() < n)
+				flush();
+		}
+
+		void putString(String s) throws IOException {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			ensure(4);
+			buf.putInt(bytes.length);
+			for (int off = 0; off < bytes.length;) {
+				ensure(1);
+				int n = Math.min(buf.remaining(), bytes.length - off);
+				buf.put(bytes, off, n);
+				off += n;
+			}
+		}
+
+		void flush() throws IOException {
+			buf.flip();
+			while (buf.hasRemaining())
+				ch.write(buf);
+			buf.clear();
+		}
+	}
+}
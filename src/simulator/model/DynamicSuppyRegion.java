@@ -1,11 +1,10 @@
 package simulator.model;
 
-import simulator.misc.Utils;
-
 public class DynamicSuppyRegion extends Region {
 
-	private double food;
-	private final double factor;
+	// package-private for Checkpoint
+	double food;
+	final double factor;
 
 	public DynamicSuppyRegion(double initialFood, double growthFactor) throws IllegalArgumentException {
 		if (initialFood < 0)
@@ -16,7 +15,7 @@ public class DynamicSuppyRegion extends Region {
 
 	@Override
 	public void update(double dt) {
-		if (Utils.randomGenerator.nextDouble() > 0.5) {
+		if (random.nextDouble() > 0.5) {
 			food -= dt * factor;
 		}
 	}
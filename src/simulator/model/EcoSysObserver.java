@@ -2,10 +2,21 @@ package simulator.model;
 
 import java.util.List;
 
+/**
+ * The animals lists received by the observers are {@link PopulationView}s. They
+ * can be kept after the call, they keep showing the population of that moment.
+ */
 public interface EcoSysObserver {
 	void onRegister(double time, MapInfo map, List<AnimalInfo> animals);
 	void onReset(double time, MapInfo map, List<AnimalInfo> animals);
 	void onAnimalAdded(double time, MapInfo map, List<AnimalInfo> animals, AnimalInfo a);
 	void onRegionSet(int row, int col, MapInfo map, RegionInfo r);
 	void onAdvanced(double time, MapInfo map, List<AnimalInfo> animals, double dt);
+
+	// Several animals added at once (loading a spec, births of a step), added are
+	// the last animals of the population
+	default void onAnimalsAdded(double time, MapInfo map, List<AnimalInfo> animals, List<AnimalInfo> added) {
+		for (AnimalInfo a : added)
+			onAnimalAdded(time, map, animals, a);
+	}
 }
@@ -0,0 +1,47 @@
+package simulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Hands out small non-negative ints as IDs. Released IDs are handed out again,
+ * the last one released first, so IDs stay below the largest number of animals
+ * alive at the same time and can index plain arrays.
+ */
+final class IdAllocator {
+	private int[] _free;
+	private int _freeCount;
+	private int _next;
+
+	IdAllocator() {
+		_free = new int[16];
+	}
+
+	int allocate() {
+		return _freeCount > 0 ? _free[--_freeCount] : _next++;
+	}
+
+	void release(int id) {
+		if (id < 0 || id >= _next)
+			throw new IllegalArgumentException("The ID " + id + " was not allocated");
+		if (_freeCount == _free.length)
+			_free = Arrays.copyOf(_free, _freeCount * 2);
+		_free[_freeCount++] = id;
+	}
+
+	// every ID allocated so far is smaller than this
+	int capacity() {
+		return _next;
+	}
+
+	// the IDs waiting to be handed out again, the next one last
+	int[] getFree() {
+		return Arrays.copyOf(_free, _freeCount);
+	}
+
+	// continues from a state read with capacity and getFree
+	void restore(int next, int[] free) {
+		_next = next;
+		_free = Arrays.copyOf(free, Math.max(16, free.length));
+		_freeCount = free.length;
+	}
+}
@@ -0,0 +1,82 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * What the map of a region manager showed to the observers at some point, it
+ * never changes.
+ */
+final class MapSnapshot implements MapInfo {
+	private final int _cols;
+	private final int _rows;
+	private final int _width;
+	private final int _height;
+	private final int _regionWidth;
+	private final int _regionHeight;
+	// row by row
+	private final RegionData[] _regions;
+
+	MapSnapshot(MapInfo map, RegionInfo[] regions) {
+		_cols = map.get_cols();
+		_rows = map.get_rows();
+		_width = map.get_width();
+		_height = map.get_height();
+		_regionWidth = map.get_regionWidth();
+		_regionHeight = map.get_regionHeight();
+		_regions = new RegionData[regions.length];
+		for (int i = 0; i < regions.length; i++)
+			_regions[i] = new RegionData(i / _cols, i % _cols, regions[i]);
+	}
+
+	RegionInfo getRegion(int row, int col) {
+		return _regions[row * _cols + col].r();
+	}
+
+	@Override
+	public int get_cols() {
+		return _cols;
+	}
+
+	@Override
+	public int get_rows() {
+		return _rows;
+	}
+
+	@Override
+	public int get_width() {
+		return _width;
+	}
+
+	@Override
+	public int get_height() {
+		return _height;
+	}
+
+	@Override
+	public int get_regionWidth() {
+		return _regionWidth;
+	}
+
+	@Override
+	public int get_regionHeight() {
+		return _regionHeight;
+	}
+
+	@Override
+	public Iterator<RegionData> iterator() {
+		return Arrays.asList(_regions).iterator();
+	}
+
+	// same as RegionManager.asJSON
+	@Override
+	public JSONObject asJSON() {
+		JSONArray regionsJA = new JSONArray();
+		for (RegionData d : _regions)
+			regionsJA.put(new JSONObject().put("row", d.row()).put("col", d.col()).put("data", d.r().asJSON()));
+		return new JSONObject().put("regiones", regionsJA);
+	}
+}
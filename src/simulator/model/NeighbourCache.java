@@ -0,0 +1,173 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Candidates of the range queries made during the update phase of a buffered
+ * step, when neither the cells of the grid nor the positions other animals
+ * see change. For a cell and a number of rings around it (the radius class)
+ * it keeps the animals of those cells, in scan order, and the same animals
+ * split by diet and by genetic code, so the next queries from that cell only
+ * have to check distances. It can be used from several threads at once.
+ * <p>
+ * The slices keep their arrays from one step to the next and are emptied when
+ * the cache is closed, so they do not keep dead animals reachable.
+ */
+public class NeighbourCache {
+	// radius classes kept, queries needing more rings go to the grid
+	private static final int MAX_RINGS = 2;
+	private static final Diet[] DIETS = Diet.values();
+	private static final int[] NONE = new int[2];
+
+	private final SpatialGrid _grid;
+	private AtomicReferenceArray<Slice> _slices;
+	private boolean _open;
+	private int _layout;
+	private long _tick;
+	private final LongAdder _hits;
+	private final LongAdder _misses;
+
+	NeighbourCache(SpatialGrid grid) {
+		_grid = grid;
+		_slices = new AtomicReferenceArray<>(0);
+		_hits = new LongAdder();
+		_misses = new LongAdder();
+	}
+
+	public long getHits() {
+		return _hits.sum();
+	}
+
+	public long getMisses() {
+		return _misses.sum();
+	}
+
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	public void resetStats() {
+		_hits.reset();
+		_misses.reset();
+	}
+
+	// slices built before are not used anymore
+	void open() {
+		int n = _grid.get_numberOfCells() * MAX_RINGS;
+		if (_slices.length() != n)
+			_slices = new AtomicReferenceArray<>(n);
+		_layout = _grid.get_layout();
+		_tick++;
+		_open = true;
+	}
+
+	void close() {
+		_open = false;
+		for (int i = 0; i < _slices.length(); i++) {
+			Slice s = _slices.get(i);
+			if (s != null)
+				s.clear();
+		}
+	}
+
+	// candidates for a query of a with that radius, null if it cannot be cached
+	Slice get(Animal a, double radius) {
+		if (!_open || _grid.get_layout() != _layout)
+			return null;
+		int k = _grid.ringsFor(radius);
+		if (k > MAX_RINGS)
+			return null;
+		int cell = _grid.cellOf(a);
+		int i = (k - 1) * _grid.get_numberOfCells() + cell;
+		Slice s = _slices.get(i);
+		if (s != null && s.tick == _tick) {
+			_hits.increment();
+			return s;
+		}
+		if (s == null) {
+			_slices.compareAndSet(i, null, new Slice());
+			s = _slices.get(i);
+		}
+		// the first thread to get here builds it, the others wait for it
+		synchronized (s) {
+			if (s.tick == _tick) {
+				_hits.increment();
+				return s;
+			}
+			_misses.increment();
+			s.build(_tick, _grid, cell, k);
+		}
+		return s;
+	}
+
+	static class Slice {
+		// written last when built, so a slice of the current tick is complete
+		volatile long tick = -1;
+		private Animal[] all = new Animal[0];
+		private int size;
+		// the animals by diet, those of diet d from dietStart[d] to dietStart[d + 1]
+		Animal[] byDiet = new Animal[0];
+		final int[] dietStart = new int[DIETS.length + 1];
+		// the animals by genetic code, each range {from, to} of byGeneticCode
+		Animal[] byGeneticCode = new Animal[0];
+		private final Map<String, int[]> codeRanges = new HashMap<>();
+
+		private void build(long tick, SpatialGrid grid, int cell, int k) {
+			int n = grid.blockSize(cell, k);
+			if (all.length < n) {
+				all = new Animal[n];
+				byDiet = new Animal[n];
+				byGeneticCode = new Animal[n];
+			}
+			grid.copyBlock(cell, k, all);
+			size = n;
+
+			// the codes seen before keep their ranges, empty if not present
+			for (int[] r : codeRanges.values())
+				r[0] = r[1] = 0;
+			int[] dietCounts = new int[DIETS.length];
+			for (int i = 0; i < n; i++) {
+				Animal a = all[i];
+				dietCounts[a._diet.ordinal()]++;
+				codeRanges.computeIfAbsent(a._geneticCode, c -> new int[2])[1]++;
+			}
+			for (int d = 0; d < DIETS.length; d++)
+				dietStart[d + 1] = dietStart[d] + dietCounts[d];
+			int from = 0;
+			for (int[] r : codeRanges.values()) {
+				r[0] = from;
+				from += r[1];
+				r[1] = r[0];
+			}
+
+			// filled in order, so every partition keeps the scan order
+			System.arraycopy(dietStart, 0, dietCounts, 0, DIETS.length);
+			for (int i = 0; i < n; i++) {
+				Animal a = all[i];
+				byDiet[dietCounts[a._diet.ordinal()]++] = a;
+				byGeneticCode[codeRanges.get(a._geneticCode)[1]++] = a;
+			}
+			this.tick = tick;
+		}
+
+		private synchronized void clear() {
+			Arrays.fill(all, 0, size, null);
+			Arrays.fill(byDiet, 0, size, null);
+			Arrays.fill(byGeneticCode, 0, size, null);
+			size = 0;
+			tick = -1;
+		}
+
+		// {from, to} of the animals with that genetic code in byGeneticCode
+		int[] rangeOf(String geneticCode) {
+			int[] r = codeRanges.get(geneticCode);
+			return r != null ? r : NONE;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package simulator.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of the population handed to the observers. A view belongs to
+ * one epoch of the simulator, which changes whenever the simulation advances,
+ * an animal is added or the simulator is reset. During its epoch it reads the
+ * animals of the simulator without copying them; when the epoch ends the
+ * simulator freezes it first, so it keeps showing the animals as they were
+ * and can be kept and read later, for instance to repaint a frame.
+ * <p>
+ * Freezing takes a snapshot of every animal, shared by all the views and
+ * observers of the same step. Other threads must only read frozen views, see
+ * {@link #snapshot()}.
+ */
+public final class PopulationView extends AbstractList<AnimalInfo> implements RandomAccess {
+	private final Simulator _sim;
+	private final long _epoch;
+	// the snapshots, once frozen; _size is written before them
+	private volatile AnimalInfo[] _frozen;
+	private int _size;
+
+	PopulationView(Simulator sim, long epoch) {
+		_sim = sim;
+		_epoch = epoch;
+	}
+
+	public long getEpoch() {
+		return _epoch;
+	}
+
+	// whether the view still reads the animals of the simulator
+	public boolean isLive() {
+		return _frozen == null;
+	}
+
+	/**
+	 * Freezes the view now instead of at the end of its epoch and returns it.
+	 * A frozen view can be read from any thread. It has to be called from the
+	 * thread of the simulator.
+	 */
+	public List<AnimalInfo> snapshot() {
+		freeze();
+		return this;
+	}
+
+	@Override
+	public AnimalInfo get(int i) {
+		AnimalInfo[] frozen = _frozen;
+		if (frozen != null) {
+			Objects.checkIndex(i, _size);
+			return frozen[i];
+		}
+		return _sim.getAnimals().get(i);
+	}
+
+	@Override
+	public int size() {
+		return _frozen != null ? _size : _sim.getAnimals().size();
+	}
+
+	void freeze() {
+		if (_frozen != null)
+			return;
+		if (_sim.getPopulationEpoch() != _epoch)
+			throw new IllegalStateException("Population view of epoch " + _epoch + " was not frozen in time");
+		_size = _sim.getAnimals().size();
+		_frozen = _sim.snapshotPopulation();
+	}
+}
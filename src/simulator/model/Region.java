@@ -1,41 +1,89 @@
 package simulator.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import simulator.misc.JSONStreamWriter;
+import simulator.misc.RandomStream;
+import simulator.misc.Utils;
+
 public abstract class Region implements Entity, FoodSupplier, RegionInfo {
     protected List<Animal> animals;
+    protected final RandomStream random;
+    // number of animals of the region per diet and per genetic code
+    private final int[] dietCounts;
+    private final Map<String, int[]> geneticCodeCounts;
+    // changes whenever an animal enters or leaves the region
+    int modCount;
 
     protected Region() {
         animals = new ArrayList<>();
+        random = Utils.newRandomStream();
+        dietCounts = new int[Diet.values().length];
+        geneticCodeCounts = new HashMap<>();
     }
 
     public final void addAnimal(Animal a) {
+        a._region = this;
+        a._regionSlot = animals.size();
         animals.add(a);
+        modCount++;
+        dietCounts[a._diet.ordinal()]++;
+        geneticCodeCounts.computeIfAbsent(a._geneticCode, k -> new int[1])[0]++;
     }
 
+    // swap-remove: the last animal of the list takes the freed slot
     public final void removeAnimal(Animal a) {
-        animals.remove(a);
+        if (a._region != this)
+            throw new IllegalArgumentException("The animal is not in this region");
+        Animal last = animals.remove(animals.size() - 1);
+        if (last != a) {
+            animals.set(a._regionSlot, last);
+            last._regionSlot = a._regionSlot;
+        }
+        a._region = null;
+        modCount++;
+        dietCounts[a._diet.ordinal()]--;
+        geneticCodeCounts.get(a._geneticCode)[0]--;
     }
 
     public final List<Animal> getAnimals() {
         return Collections.unmodifiableList(animals);
     }
 
+    // Animals leave the counts when they leave the region, dead animals do it
+    // when the simulator removes them at the start of the next step
+    @Override
     public final int getNumberOfAnimals(Diet diet) {
-        int n = 0;
-        for (Animal animal : animals)
-            if (animal.get_diet() == diet) n++;
-        return n;
+        return dietCounts[diet.ordinal()];
+    }
+
+    @Override
+    public final int getNumberOfAnimals(String geneticCode) {
+        int[] n = geneticCodeCounts.get(geneticCode);
+        return n == null ? 0 : n[0];
     }
 
     @Override
     public JSONObject asJSON() {
-        return new JSONObject().put("animals", new JSONArray(this.animals));
+        JSONArray animalsJA = new JSONArray();
+        for (Animal a : animals)
+            animalsJA.put(a.asJSON());
+        return new JSONObject().put("animals", animalsJA);
+    }
+
+    public void writeJSON(JSONStreamWriter w) throws IOException {
+        w.beginObject().key("animals").beginArray();
+        for (Animal a : animals)
+            a.writeJSON(w);
+        w.endArray().endObject();
     }
     
     public List<AnimalInfo> getAnimalsInfo(){
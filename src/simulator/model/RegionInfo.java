@@ -7,5 +7,9 @@ public interface RegionInfo extends JSONable{
 	// Iterable<AnimalInfo>
 	
 	public List<AnimalInfo> getAnimalsInfo();
+
+	public int getNumberOfAnimals(Diet diet);
+
+	public int getNumberOfAnimals(String geneticCode);
 	
 }
@@ -1,15 +1,17 @@
 package simulator.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import simulator.misc.JSONStreamWriter;
 import simulator.misc.Utils;
 import simulator.misc.Vector2D;
 
@@ -19,6 +21,8 @@ public class RegionManager implements AnimalMapView {
 	public static final int MIN_HEIGHT = 10;
 	public static final int MIN_COLS = 1;
 	public static final int MIN_ROWS = 1;
+	// Starting cell size of the spatial grid, it grows with the sight ranges
+	public static final double MIN_GRID_CELL_SIZE = 10.0;
 
 	// Fields
 	private final int _cols;
@@ -28,7 +32,16 @@ public class RegionManager implements AnimalMapView {
 	private final int _regionWidth;
 	private final int _regionHeight;
 	private final Region[][] _regions;
-	private final Map<Animal, Region> _animalRegion;
+	private final SpatialGrid _grid;
+	// animals dead since the last cull
+	private final List<Animal> _dead;
+	private final NeighbourCache _cache;
+	// registered animals by ID, and the generation of each ID, which changes
+	// when the animal holding it is unregistered
+	private final IdAllocator _ids;
+	private Animal[] _byId;
+	private int[] _generations;
+	private final SnapshotCache _snapshots;
 
 	public RegionManager(int cols, int rows, int width, int height) throws IllegalArgumentException {
 		if (width < MIN_WIDTH)
@@ -54,12 +67,18 @@ public class RegionManager implements AnimalMapView {
 			}
 		}
 
-		_animalRegion = new HashMap<>();
+		_grid = new SpatialGrid(width, height, MIN_GRID_CELL_SIZE);
+		_dead = new ArrayList<>();
+		_cache = new NeighbourCache(_grid);
+		_ids = new IdAllocator();
+		_byId = new Animal[64];
+		_generations = new int[64];
+		_snapshots = new SnapshotCache();
 	}
 
 	@Override
 	public double getFood(Animal a, double dt) {
-		return _animalRegion.get(a).getFood(a, dt);
+		return a._region.getFood(a, dt);
 	}
 
 	@Override
@@ -95,23 +114,55 @@ public class RegionManager implements AnimalMapView {
 	@Override
 	public List<Animal> getAnimalsInRange(Animal a, Predicate<Animal> filter) {
 		List<Animal> inSight = new ArrayList<>();
+		_grid.forEachInRange(a, a.get_sightRange(), filter, inSight::add);
+		return inSight;
+	}
 
-		Vector2D topLeft = minPositionSightRange(a);
-		Vector2D bottomRight = maxPositionSightRange(a);
+	@Override
+	public void forEachAnimalInRange(Animal a, Predicate<Animal> filter, Consumer<Animal> action) {
+		_grid.forEachInRange(a, a.get_sightRange(), filter, action);
+	}
 
-		int minRow = (int) (topLeft.getY() / _regionHeight);
-		int maxRow = (int) (bottomRight.getY() / _regionHeight);
-		int minCol = (int) (topLeft.getX() / _regionWidth);
-		int maxCol = (int) (bottomRight.getX() / _regionWidth);
+	@Override
+	public Animal selectAnimalInRange(Animal a, Predicate<Animal> filter, SelectionStrategy s) {
+		return _grid.select(a, a.get_sightRange(), filter, s);
+	}
 
-		for (int i = minRow; i < maxRow; i++) {
-			for (int j = minCol; j < maxCol; j++) {
-				List<Animal> animalsInRegion = _regions[i][j].getAnimals().stream().filter(filter).toList();
-				inSight.addAll(animalsInRegion);
-			}
-		}
+	@Override
+	public Animal selectAnimalInRange(Animal a, Diet diet, Predicate<Animal> filter, SelectionStrategy s) {
+		NeighbourCache.Slice slice = _cache.get(a, a.get_sightRange());
+		if (slice == null)
+			return s.select(a, this, b -> b._diet == diet && filter.test(b));
+		int d = diet.ordinal();
+		return select(a, slice.byDiet, slice.dietStart[d], slice.dietStart[d + 1], filter, s);
+	}
 
-		return inSight;
+	@Override
+	public Animal selectAnimalInRange(Animal a, String geneticCode, Predicate<Animal> filter, SelectionStrategy s) {
+		NeighbourCache.Slice slice = _cache.get(a, a.get_sightRange());
+		if (slice == null)
+			return s.select(a, this, b -> b._geneticCode.equals(geneticCode) && filter.test(b));
+		int[] r = slice.rangeOf(geneticCode);
+		return select(a, slice.byGeneticCode, r[0], r[1], filter, s);
+	}
+
+	public NeighbourCache getNeighbourCache() {
+		return _cache;
+	}
+
+	// while open, range queries with a diet or a genetic code are answered from
+	// the cache, the grid and the positions seen must not change meanwhile
+	void openNeighbourCache() {
+		_cache.open();
+	}
+
+	void closeNeighbourCache() {
+		_cache.close();
+	}
+
+	@Override
+	public Animal getClosestAnimalInRange(Animal a, Predicate<Animal> filter) {
+		return _grid.closest(a, a.get_sightRange(), filter);
 	}
 
 	@Override
@@ -122,6 +173,18 @@ public class RegionManager implements AnimalMapView {
 				regionsJA.put(new JSONObject().put("row", r).put("col", c).put("data", this._regions[r][c].asJSON()));
 		return new JSONObject().put("regiones", regionsJA);
 	}
+
+	// same text as asJSON, keys in the order JSONObject prints them
+	public void writeJSON(JSONStreamWriter w) throws IOException {
+		w.beginObject().key("regiones").beginArray();
+		for (int r = 0; r < _rows; r++)
+			for (int c = 0; c < _cols; c++) {
+				w.beginObject().key("col").value(c).key("data");
+				_regions[r][c].writeJSON(w);
+				w.key("row").value(r).endObject();
+			}
+		w.endArray().endObject();
+	}
 	
 	// ------------------------- //
 
@@ -131,26 +194,103 @@ public class RegionManager implements AnimalMapView {
 		}
 	}
 
+	Region getRegion(int row, int col) {
+		return _regions[row][col];
+	}
+
+	// unlike setRegion, any row and column of the map
+	void restoreRegion(int row, int col, Region r) {
+		_regions[row][col] = r;
+	}
+
+	SnapshotCache getSnapshots() {
+		return _snapshots;
+	}
+
+	SpatialGrid getGrid() {
+		return _grid;
+	}
+
+	List<Animal> getDeadAnimals() {
+		return _dead;
+	}
+
 	public void registerAnimal(Animal a) {
+		assignId(a, _ids.allocate());
 		a.init(this);
-		Region r = calcAnimalRegion(a);
-		r.addAnimal(a);
-		_animalRegion.put(a, r);
+		calcAnimalRegion(a).addAnimal(a);
+		_grid.add(a);
+	}
+
+	// same as registering them one after the other, in order
+	public void registerAnimals(List<Animal> animals) {
+		if (animals.isEmpty())
+			return;
+		for (Animal a : animals)
+			assignId(a, _ids.allocate());
+		for (Animal a : animals) {
+			a.init(this);
+			calcAnimalRegion(a).addAnimal(a);
+			_grid.add(a);
+		}
 	}
 
 	public void unregisterAnimal(Animal a) {
-		_animalRegion.get(a).removeAnimal(a);
-		_animalRegion.remove(a);
+		a._region.removeAnimal(a);
+		_grid.remove(a);
+		_byId[a._id] = null;
+		_generations[a._id]++;
+		_ids.release(a._id);
+		a._id = -1;
+	}
+
+	// the ID of the animal and its generation, a registered animal has one
+	@Override
+	public long handleOf(Animal a) {
+		if (a._id < 0)
+			throw new IllegalArgumentException("Only registered animals have a handle");
+		return (long) _generations[a._id] << 32 | a._id;
+	}
+
+	@Override
+	public Animal resolve(long handle) {
+		int id = (int) handle;
+		if (id < 0 || id >= _byId.length || _generations[id] != (int) (handle >>> 32))
+			return null;
+		return _byId[id];
+	}
+
+	int getGeneration(int id) {
+		return _generations[id];
+	}
+
+	void restoreGeneration(int id, int generation) {
+		grow(id);
+		_generations[id] = generation;
+	}
+
+	// the registered animal with that ID, or null
+	Animal getAnimal(int id) {
+		return id >= 0 && id < _byId.length ? _byId[id] : null;
+	}
+
+	IdAllocator getIdAllocator() {
+		return _ids;
+	}
+
+	// gives a the ID it had when it was saved, see Checkpoint
+	void restoreId(Animal a, int id) {
+		assignId(a, id);
+	}
+
+	// only the cell of the grid, the region is updated by updateAnimalRegion
+	void updateAnimalCell(Animal a) {
+		_grid.move(a);
 	}
 
 	public void updateAnimalRegion(Animal a) {
-		Region next = calcAnimalRegion(a);
-		Region current = _animalRegion.get(a);
-		if (!next.equals(current)) {
-			next.addAnimal(a);
-			current.removeAnimal(a);
-			_animalRegion.replace(a, current, next);
-		}
+		_grid.move(a);
+		moveToRegion(a, calcAnimalRegion(a));
 	}
 
 	public void updateAllRegions(double dt) {
@@ -161,30 +301,75 @@ public class RegionManager implements AnimalMapView {
 		}
 	}
 
-	public void removeDeadAnimals() {
-		List<Animal> deadAnimals = new ArrayList<>();
-		_animalRegion.forEach((a, r) -> {
-			if (!a.isAlive())
-				deadAnimals.add(a);
-		});
-		deadAnimals.forEach(this::unregisterAnimal);
+	@Override
+	public void onAnimalDied(Animal a) {
+		_dead.add(a);
+	}
+
+	/**
+	 * Unregisters the animals dead since the last call and removes them from
+	 * animals, keeping the order of the rest. Nothing is walked if no animal has
+	 * died, otherwise animals is compacted in place in a single pass.
+	 */
+	public void cullDeadAnimals(List<Animal> animals) {
+		if (_dead.isEmpty())
+			return;
+		// unregistered in population order, so that the regions and the grid end
+		// up the same whatever the order in which the animals died
+		int n = animals.size();
+		int w = 0;
+		for (int i = 0; i < n; i++) {
+			Animal a = animals.get(i);
+			if (a.isAlive())
+				animals.set(w++, a);
+			else
+				unregisterAnimal(a);
+		}
+		animals.subList(w, n).clear();
+		_dead.clear();
 	}
 
 	// Auxiliary methods
-	private Vector2D minPositionSightRange(Animal a) {
-		double x = a.get_position().getX() - a.get_sightRange();
-		double y = a.get_position().getY() - a.get_sightRange();
-		x = Math.max(x, 0);
-		y = Math.max(y, 0);
-		return new Vector2D(x, y);
-	}
-
-	private Vector2D maxPositionSightRange(Animal a) {
-		double x = a.get_position().getX() + a.get_sightRange();
-		double y = a.get_position().getY() + a.get_sightRange();
-		x = Math.min(x, _width);
-		y = Math.min(y, _height);
-		return new Vector2D(x, y);
+	private Animal select(Animal a, Animal[] candidates, int from, int to, Predicate<Animal> filter,
+			SelectionStrategy s) {
+		double cx = a._pos.getX();
+		double cy = a._pos.getY();
+		double r = a.get_sightRange();
+		Animal best = null;
+		for (int i = from; i < to; i++) {
+			Animal b = candidates[i];
+			Vector2D p = b.get_position();
+			double dx = p.getX() - cx;
+			double dy = p.getY() - cy;
+			if (dx * dx + dy * dy < r * r && filter.test(b)) {
+				best = s.reduce(a, best, b);
+				if (best != null && s.isFinal(a, best))
+					return best;
+			}
+		}
+		return best;
+	}
+
+	private void assignId(Animal a, int id) {
+		grow(id);
+		_byId[id] = a;
+		a._id = id;
+	}
+
+	private void grow(int id) {
+		if (id >= _byId.length) {
+			int n = Math.max(id + 1, _byId.length * 2);
+			_byId = Arrays.copyOf(_byId, n);
+			_generations = Arrays.copyOf(_generations, n);
+		}
+	}
+
+	private void moveToRegion(Animal a, Region next) {
+		Region current = a._region;
+		if (next != current) {
+			current.removeAnimal(a);
+			next.addAnimal(a);
+		}
 	}
 
 	private Region calcAnimalRegion(Animal a) {
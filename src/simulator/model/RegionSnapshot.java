@@ -0,0 +1,56 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * What a region showed to the observers at some point, it never changes.
+ */
+final class RegionSnapshot implements RegionInfo {
+	private final List<AnimalInfo> _animals;
+	private final int[] _dietCounts;
+	private final Map<String, Integer> _geneticCodeCounts;
+
+	RegionSnapshot(Region r, SnapshotCache snapshots) {
+		AnimalInfo[] animals = new AnimalInfo[r.animals.size()];
+		_dietCounts = new int[Diet.values().length];
+		_geneticCodeCounts = new HashMap<>();
+		for (int i = 0; i < animals.length; i++) {
+			AnimalInfo a = snapshots.of(r.animals.get(i));
+			animals[i] = a;
+			_dietCounts[a.get_diet().ordinal()]++;
+			_geneticCodeCounts.merge(a.get_geneticCode(), 1, Integer::sum);
+		}
+		_animals = Collections.unmodifiableList(Arrays.asList(animals));
+	}
+
+	@Override
+	public List<AnimalInfo> getAnimalsInfo() {
+		return _animals;
+	}
+
+	@Override
+	public int getNumberOfAnimals(Diet diet) {
+		return _dietCounts[diet.ordinal()];
+	}
+
+	@Override
+	public int getNumberOfAnimals(String geneticCode) {
+		return _geneticCodeCounts.getOrDefault(geneticCode, 0);
+	}
+
+	// same as Region.asJSON
+	@Override
+	public JSONObject asJSON() {
+		JSONArray animalsJA = new JSONArray();
+		for (AnimalInfo a : _animals)
+			animalsJA.put(a.asJSON());
+		return new JSONObject().put("animals", animalsJA);
+	}
+}
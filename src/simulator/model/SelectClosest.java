@@ -1,22 +1,22 @@
 package simulator.model;
 
-import java.util.List;
+import java.util.function.Predicate;
+
+import simulator.misc.Vector2D;
 
 public class SelectClosest implements SelectionStrategy{
 
 	@Override
-	public Animal select(Animal a, List<Animal> as) {
-		Animal closest = null;
-		if (!as.isEmpty()) {
-			closest = as.get(0);
-			for (int i = 1; i < as.size(); i++) {
-				Animal animal = as.get(i);
-				if (a.get_position().distanceTo(animal.get_position()) < a.get_position().distanceTo(closest.get_position()) ) {
-					closest = animal;
-				}
-			}
-		}
-		return closest;
+	public Animal reduce(Animal a, Animal best, Animal candidate) {
+		if (best == null)
+			return candidate;
+		Vector2D pos = a.get_position();
+		return pos.distanceSqTo(candidate.get_position()) < pos.distanceSqTo(best.get_position()) ? candidate : best;
+	}
+
+	@Override
+	public Animal select(Animal a, AnimalMapView map, Predicate<Animal> filter) {
+		return map.getClosestAnimalInRange(a, filter);
 	}
 	
 }
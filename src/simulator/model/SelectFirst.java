@@ -1,12 +1,15 @@
 package simulator.model;
 
-import java.util.List;
-
 public class SelectFirst implements SelectionStrategy {
 
 	@Override
-	public Animal select(Animal a, List<Animal> as) {
-		return !as.isEmpty() ? as.get(0) : null;
+	public Animal reduce(Animal a, Animal best, Animal candidate) {
+		return best != null ? best : candidate;
+	}
+
+	@Override
+	public boolean isFinal(Animal a, Animal best) {
+		return true;
 	}
 
 }
@@ -1,19 +1,8 @@
 package simulator.model;
 
-import java.util.List;
-
 public class SelectYoungest implements SelectionStrategy {
 	@Override
-	public Animal select(Animal a, List<Animal> as) {
-		Animal youngest = null;
-		if (!as.isEmpty()) {
-			youngest = as.get(0);
-			for (Animal animal : as) {
-				if (animal.get_age() < youngest.get_age()) {
-					youngest = animal;
-				}
-			}
-		}
-		return youngest;
+	public Animal reduce(Animal a, Animal best, Animal candidate) {
+		return best == null || candidate.get_age() < best.get_age() ? candidate : best;
 	}
 }
@@ -1,7 +1,37 @@
 package simulator.model;
 
 import java.util.List;
+import java.util.function.Predicate;
 
+/**
+ * A selection strategy is a reduction over the candidates, which are offered
+ * one by one in the order the map finds them. {@link #reduce} must not keep
+ * state of its own, the same strategy is shared by parents and babies and may
+ * be used from several threads at once.
+ */
 public interface SelectionStrategy {
-	Animal select(Animal a, List<Animal> as);
+	// the selected animal once candidate has been seen, best is the one selected
+	// so far (null at the start)
+	Animal reduce(Animal a, Animal best, Animal candidate);
+
+	// true if no candidate after best can be selected, so the scan can stop
+	default boolean isFinal(Animal a, Animal best) {
+		return false;
+	}
+
+	// selects among the animals of a list
+	default Animal select(Animal a, List<Animal> as) {
+		Animal best = null;
+		for (Animal candidate : as) {
+			best = reduce(a, best, candidate);
+			if (best != null && isFinal(a, best))
+				break;
+		}
+		return best;
+	}
+
+	// selects among the animals a sees that pass filter
+	default Animal select(Animal a, AnimalMapView map, Predicate<Animal> filter) {
+		return map.selectAnimalInRange(a, filter, this);
+	}
 }
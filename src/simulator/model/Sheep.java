@@ -1,6 +1,5 @@
 package simulator.model;
 
-import java.util.List;
 
 import simulator.misc.Utils;
 import simulator.misc.Vector2D;
@@ -30,8 +29,9 @@ public class Sheep extends Animal {
 	// Attributes //
 	// ---------------------------- //
 
-	private final SelectionStrategy dangerStrategy;
-	private Animal dangerSource;
+	// package-private for Checkpoint
+	final SelectionStrategy dangerStrategy;
+	long dangerSource;
 
 	// ---------------------------- //
 	// Constructors
@@ -41,14 +41,14 @@ public class Sheep extends Animal {
 			throws IllegalArgumentException {
 		super("Sheep", Diet.HERBIVORE, BASE_SIGHT_RANGE, BASE_INIT_SPEED, mateStrategy, pos);
 		this.dangerStrategy = dangerStrategy;
-		this.dangerSource = null;
+		this.dangerSource = NO_HANDLE;
 		this._age = 1.0;
 	}
 
 	protected Sheep(Sheep p1, Animal p2) {
 		super(p1, p2);
 		dangerStrategy = p1.dangerStrategy;
-		dangerSource = null;
+		dangerSource = NO_HANDLE;
 	}
 
 	@Override
@@ -65,42 +65,44 @@ public class Sheep extends Animal {
 			}
 
 			if (isOutOfBounds(_regionManager.get_width(), _regionManager.get_height())) {
-				_pos = _pos.adjust(_regionManager.get_width(), _regionManager.get_height());
+				_pos.wrap(_regionManager.get_width(), _regionManager.get_height());
 				_state = State.NORMAL;
 			}
 
 			if (_energy == MIN_ENERGY || _age > DEATH_AGE)
 				die();
 
-			if (isAlive()) {
-				double food = _regionManager.getFood(this, dt);
-				alterEnergy(_energy + food);
-			}
+			if (isAlive())
+				feed(dt);
 		}
 	}
 
 	private void updateDangerState(double dt) {
-		if (dangerSource != null && !dangerSource.isAlive() || outOfSight(dangerSource))
-			dangerSource = null;
-		if (dangerSource == null)
+		Animal source = resolve(dangerSource);
+		if (source != null && (!source.isSeenAlive() || outOfSight(source))) {
+			source = null;
+			dangerSource = NO_HANDLE;
+		}
+		if (source == null)
 			moveNormal(dt);
-		else if (!outOfSight(dangerSource))
-			moveWithDangerSource(dt);
+		else
+			moveWithDangerSource(source, dt);
 		stateChangeDanger();
 	}
 
 	private void updateMateState(double dt) {
 		mateDiedOrWentFar();
 
-		if (_mateTarget == null)
+		Animal mate = get_mateTarget();
+		if (mate == null)
 			moveNormal(dt);
 		else {
-			_dest = _mateTarget.get_position();
+			_dest.set(mate.get_position());
 			move(SPEED_FACTOR_TO_MATE * calcBaseMoveSpeed(dt));
 			_age += dt;
 			alterEnergy(_energy - BASE_ENERGY_DECREASE_FACTOR * ALTERED_STATE_ENERGY_DECREASE_FACTOR * dt);
 			alterDesire(_desire + BASE_DESIRE_INCREASE_FACTOR * dt);
-			reproduce();
+			reproduce(mate);
 		}
 
 		findDangerSource();
@@ -112,8 +114,8 @@ public class Sheep extends Animal {
 	// ---------------------------- //
 
 	private void moveNormal(double dt) {
-		if (_pos.distanceTo(_dest) < DISTANCE_TO_OBJECTIVE) {
-			_dest = Utils.getRandomPosition(_regionManager.get_width(), _regionManager.get_cols());
+		if (_pos.distanceSqTo(_dest) < DISTANCE_TO_OBJECTIVE * DISTANCE_TO_OBJECTIVE) {
+			setRandomDestination(_regionManager.get_width(), _regionManager.get_cols());
 		}
 		move(calcBaseMoveSpeed(dt));
 		_age += dt;
@@ -121,8 +123,8 @@ public class Sheep extends Animal {
 		alterDesire(_desire + BASE_DESIRE_INCREASE_FACTOR * dt);
 	}
 
-	private void moveWithDangerSource(double dt) {
-		_pos = _pos.plus(_pos.minus(dangerSource.get_position()).direction());
+	private void moveWithDangerSource(Animal source, double dt) {
+		_pos.moveTowards(source.get_position(), -1.0);
 		move(IN_DANGER_SPEED_FACTOR * calcBaseMoveSpeed(dt));
 		_age += dt;
 		alterEnergy(_energy - BASE_ENERGY_DECREASE_FACTOR * ALTERED_STATE_ENERGY_DECREASE_FACTOR * dt);
@@ -134,21 +136,20 @@ public class Sheep extends Animal {
 	// ---------------------------- //
 
 	private void stateChangeNormal() {
-		findDangerSource();
-		if (dangerSource != null) {
+		if (findDangerSource() != null) {
 			_state = State.DANGER;
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		} else if (_desire >= MIN_DESIRE_TO_MATE)
 			_state = State.MATE;
 	}
 
 	private void stateChangeDanger() {
-		if (dangerSource == null || outOfSight(dangerSource)) {
-			findDangerSource();
-			if (dangerSource == null) {
+		Animal source = resolve(dangerSource);
+		if (source == null || outOfSight(source)) {
+			if (findDangerSource() == null) {
 				if (_desire < MIN_DESIRE_TO_MATE) {
 					_state = State.NORMAL;
-					_mateTarget = null;
+					_mateTarget = NO_HANDLE;
 				} else
 					_state = State.MATE;
 			}
@@ -156,38 +157,42 @@ public class Sheep extends Animal {
 	}
 
 	private void stateChangeMate() {
-		if (dangerSource != null) {
+		if (resolve(dangerSource) != null) {
 			_state = State.DANGER;
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		} else if (_desire < MIN_DESIRE_TO_MATE) {
 			_state = State.NORMAL;
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		}
 	}
 
 	// ---------------------------- //
 	// Auxiliary methods
 	// ---------------------------- //
-	private void reproduce() {
-		if (_pos.distanceTo(_mateTarget._pos) < DISTANCE_TO_OBJECTIVE) {
+	private void reproduce(Animal mate) {
+		if (_pos.distanceSqTo(mate.get_position()) < DISTANCE_TO_OBJECTIVE * DISTANCE_TO_OBJECTIVE) {
 			_desire = MIN_DESIRE;
-			_mateTarget._desire = MIN_DESIRE;
+			calmMate(mate);
 
-			if (_baby == null && Utils.randomGenerator.nextDouble() < BECOME_PREGNANT_PROBABILITY)
-				_baby = new Sheep(this, _mateTarget);
+			if (_baby == null && _random.nextDouble() < BECOME_PREGNANT_PROBABILITY)
+				_baby = new Sheep(this, mate);
 
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		}
 	}
 
-	private void findDangerSource() {
-		if (dangerSource == null) {
-			List<Animal> carnivoresInRange = _regionManager.getAnimalsInRange(this, a -> a._diet.equals(Diet.CARNIVORE));
-			dangerSource = dangerStrategy.select(this, carnivoresInRange);
+	// the current danger source, looking for one if there is none
+	private Animal findDangerSource() {
+		Animal source = resolve(dangerSource);
+		if (source == null) {
+			source = _regionManager.selectAnimalInRange(this, Diet.CARNIVORE, a -> true, dangerStrategy);
+			dangerSource = handleOf(source);
 		}
+		return source;
 	}
 
-	private void alterEnergy(double addition) {
+	@Override
+	protected void alterEnergy(double addition) {
 		_energy = Utils.constrainValueInRange(addition, MIN_ENERGY, MAX_ENERGY);
 	}
 
@@ -2,13 +2,17 @@ package simulator.model;
 
 import org.json.JSONObject;
 import simulator.factories.Factory;
+import simulator.misc.JSONStreamWriter;
+import simulator.model.StepTimes.Phase;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
-public class Simulator implements JSONable, Observable<EcoSysObserver> {
+public class Simulator implements JSONable, Observable<EcoSysObserver>, AutoCloseable {
 	
     private final Factory<Animal> animalsFactory;
     private final Factory<Region> regionsFactory;
@@ -16,6 +20,12 @@ public class Simulator implements JSONable, Observable<EcoSysObserver> {
     private List<Animal> animals;
     private double simulationTime;
     private List<EcoSysObserver> observers;
+    private final StepTimes stepTimes;
+    private int parallelism;
+    private ForkJoinPool pool;
+    private long populationEpoch;
+    private boolean neighbourCache;
+    private PopulationView populationView;
 
     public Simulator(int cols, int rows, int width, int height, Factory<Animal> animalsFactory,
                      Factory<Region> regionsFactory) {
@@ -25,6 +35,12 @@ public class Simulator implements JSONable, Observable<EcoSysObserver> {
         this.animals = new ArrayList<>();
         this.simulationTime = 0.0;
         this.observers = new ArrayList<>();
+        this.stepTimes = new StepTimes();
+        this.parallelism = 0;
+        this.pool = null;
+        this.populationEpoch = 0;
+        this.populationView = null;
+        this.neighbourCache = true;
     }
 
     private void setRegion(int row, int col, Region r) {
@@ -41,18 +57,68 @@ public class Simulator implements JSONable, Observable<EcoSysObserver> {
         // observers.forEach(o -> o.onRegionSet(row, col, regionManager, r);
     }
 
-    private void addAnimal(Animal a) {
+    private void registerAnimal(Animal a) {
         this.animals.add(a);
         this.regionManager.registerAnimal(a);
+    }
+
+    private void addAnimal(Animal a) {
+        nextEpoch(false);
+        registerAnimal(a);
+        if (observers.isEmpty())
+            return;
+        PopulationView view = getPopulationView();
         Iterator<EcoSysObserver> it = observers.iterator();
         while(it.hasNext())
-        	it.next().onAnimalAdded(simulationTime, regionManager, new ArrayList<>(animals), a);
+        	it.next().onAnimalAdded(simulationTime, regionManager, view, a);
     }
 
     public void addAnimal(JSONObject aJson) {
         addAnimal(animalsFactory.createInstance(aJson));
     }
 
+    // amount animals of the same spec, created from the spec parsed once and
+    // registered together; the observers get a single onAnimalsAdded
+    public void addAnimals(JSONObject aJson, int amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("The amount of animals cannot be negative");
+        List<Animal> added = animalsFactory.createInstances(aJson, amount);
+        nextEpoch(false);
+        animals.addAll(added);
+        regionManager.registerAnimals(added);
+        notifyAnimalsAdded(amount);
+    }
+
+    /**
+     * Starts a new epoch of the population, before it changes. The view handed
+     * out for the epoch that ends is frozen, so it keeps what it showed. Views
+     * are only handed out to observers (or to whoever asks for one), so without
+     * them nothing is copied. With
+     * changed, the animals already there are going to change too, not only be
+     * added to.
+     */
+    private void nextEpoch(boolean changed) {
+        if (populationView != null)
+            populationView.freeze();
+        populationView = null;
+        if (changed)
+            regionManager.getSnapshots().invalidate();
+        populationEpoch++;
+    }
+
+    // snapshots of the animals for PopulationView.freeze
+    AnimalInfo[] snapshotPopulation() {
+        return regionManager.getSnapshots().population(animals);
+    }
+
+    private void notifyAnimalsAdded(int n) {
+        if (n == 0 || observers.isEmpty())
+            return;
+        PopulationView view = getPopulationView();
+        List<AnimalInfo> added = view.subList(view.size() - n, view.size());
+        observers.forEach(o -> o.onAnimalsAdded(simulationTime, regionManager, view, added));
+    }
+
     public MapInfo getMapInfo() {
         return regionManager;
     }
@@ -61,54 +127,221 @@ public class Simulator implements JSONable, Observable<EcoSysObserver> {
         return animals;
     }
 
+    // the animal with that ID, or null if there is none, see AnimalInfo.get_id
+    public AnimalInfo getAnimal(int id) {
+        return regionManager.getAnimal(id);
+    }
+
     public double getSimulationTime() {
         return simulationTime;
     }
 
+    // Changes whenever the simulation advances, an animal is added or the
+    // simulator is reset, see PopulationView
+    public long getPopulationEpoch() {
+        return populationEpoch;
+    }
+
+    // Read-only view of the population, frozen when the epoch changes
+    public PopulationView getPopulationView() {
+        if (populationView == null || populationView.getEpoch() != populationEpoch)
+            populationView = new PopulationView(this, populationEpoch);
+        return populationView;
+    }
+
+    /**
+     * Sets how many threads update the animals. With 0 (the default) animals are
+     * updated one after the other, each one seeing the changes made by the
+     * previous ones. With 1 or more the update phase is buffered: every animal
+     * sees the others as they were at the start of the step, and kills, mating
+     * and feeding are resolved afterwards in population order, so the result does
+     * not depend on the number of threads.
+     */
+    public void setParallelism(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("The number of threads cannot be negative");
+        if (pool != null)
+            pool.shutdown();
+        parallelism = threads;
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops the worker threads of setParallelism. The simulator can still be
+     * used: the animals are updated on the calling thread, with the same result,
+     * until setParallelism is called again.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Enables or disables the cache of range queries of the buffered update
+     * phase (enabled by default). It does not change the results, the sequential
+     * update never uses it because animals move while the others look around.
+     */
+    public void setNeighbourCache(boolean enabled) {
+        neighbourCache = enabled;
+    }
+
+    public NeighbourCache getNeighbourCache() {
+        return regionManager.getNeighbourCache();
+    }
+
+    public StepTimes getStepTimes() {
+        return stepTimes;
+    }
+
     public void advance(double dt) {
+        nextEpoch(true);
         simulationTime += dt;
-        regionManager.removeDeadAnimals();
 
-        animals = animals.stream().filter(Animal::isAlive).collect(Collectors.toList());
+        long t = System.nanoTime();
+        cullDeadAnimals();
+        t = stepTimes.record(Phase.CULL, t);
+        updateAnimals(dt);
+        t = stepTimes.record(Phase.UPDATE, t);
+        reassignRegions();
+        t = stepTimes.record(Phase.REASSIGN, t);
+        regionManager.updateAllRegions(dt);
+        t = stepTimes.record(Phase.REGIONS, t);
+        deliverBabies();
+        stepTimes.record(Phase.BIRTHS, t);
+        stepTimes.stepDone();
+
+        if (observers.isEmpty())
+            return;
+        PopulationView view = getPopulationView();
+        observers.forEach(o -> o.onAdvanced(simulationTime, regionManager, view, dt));
+    }
+
+    private void cullDeadAnimals() {
+        regionManager.cullDeadAnimals(animals);
+    }
+
+    private void updateAnimals(double dt) {
+        if (parallelism == 0) {
+            // the next animals see this one where it is now, so its cell has to
+            // be the one of its new position before they look for it
+            for (Animal a : animals) {
+                a.update(dt);
+                regionManager.updateAnimalCell(a);
+            }
+        } else {
+            for (Animal a : animals)
+                a.beginBufferedStep();
+            if (neighbourCache)
+                regionManager.openNeighbourCache();
+            if (pool == null)
+                animals.forEach(a -> a.update(dt));
+            else
+                pool.submit(() -> animals.parallelStream().forEach(a -> a.update(dt))).join();
+            regionManager.closeNeighbourCache();
+            for (Animal a : animals)
+                a.endBufferedStep(dt);
+        }
+    }
 
-        List<Animal> born = new ArrayList<>();
-        for (Animal a : animals) {
-            a.update(dt);
+    private void reassignRegions() {
+        for (Animal a : animals)
             regionManager.updateAnimalRegion(a);
-            regionManager.updateAllRegions(dt);
+    }
+
+    private void deliverBabies() {
+        // babies are appended to the list, so only the parents are visited
+        int births = 0;
+        for (int i = 0, n = animals.size(); i < n; i++) {
+            Animal a = animals.get(i);
             if (a.isPregnant()) {
-                born.add(a.deliverBaby());
+                registerAnimal(a.deliverBaby());
+                births++;
             }
         }
-
-        born.forEach(this::addAnimal);
-        observers.forEach(o -> o.onAdvanced(simulationTime, regionManager, new ArrayList<>(animals), dt));
+        notifyAnimalsAdded(births);
     }
 
     @Override
     public JSONObject asJSON() {
         return new JSONObject().put("time", simulationTime).put("state", regionManager.asJSON());
     }
+
+    // same text as asJSON, without building the tree
+    public void writeJSON(JSONStreamWriter w) throws IOException {
+        w.beginObject().key("time").value(simulationTime).key("state");
+        regionManager.writeJSON(w);
+        w.endObject();
+    }
     
 public void reset(int cols, int rows, int width, int height) {
+    	nextEpoch(true);
     	animals = new ArrayList<Animal>();
     	regionManager = new RegionManager(cols, rows, width, height);
     	simulationTime = 0.0;
+    	stepTimes.reset();
+    	if (observers.isEmpty())
+    		return;
+    	PopulationView view = getPopulationView();
     	Iterator<EcoSysObserver> it = observers.iterator();
     	while(it.hasNext())
-    		it.next().onReset(simulationTime, regionManager, new ArrayList<>(animals));
+    		it.next().onReset(simulationTime, regionManager, view);
+    }
+
+    /**
+     * Saves the whole state of the simulation to file, see Checkpoint. It has to
+     * be called between steps, from the thread that created the animals.
+     */
+    public void saveCheckpoint(Path file) throws IOException {
+        Checkpoint.write(file, simulationTime, regionManager, animals);
+    }
+
+    /**
+     * Replaces the state of the simulation with the one saved in file, as if
+     * the simulation had gone on from there. The observers get an onReset.
+     */
+    public void restoreCheckpoint(Path file) throws IOException {
+        Checkpoint.Restored c = Checkpoint.read(file);
+        nextEpoch(true);
+        animals = c.animals;
+        regionManager = c.regionManager;
+        simulationTime = c.time;
+        if (observers.isEmpty())
+            return;
+        PopulationView view = getPopulationView();
+        observers.forEach(o -> o.onReset(simulationTime, regionManager, view));
     }
 
 	@Override
 	public void addObserver(EcoSysObserver o) {
 		if(!observers.contains(o)) {
 			observers.add(o);
-			o.onRegister(simulationTime, regionManager, new ArrayList<>(animals));
+			o.onRegister(simulationTime, regionManager, getPopulationView());
 		}
 	}
 
+	// o is notified on a thread of its own, remove the observer returned to stop it
+	public AsyncObserver addAsyncObserver(EcoSysObserver o, AsyncObserver.Policy policy) {
+		AsyncObserver async = new AsyncObserver(o, policy);
+		addObserver(async);
+		return async;
+	}
+
+	// an asynchronous observer removed delivers what it has queued and stops
 	@Override
 	public void removeObserver(EcoSysObserver o) {
-		observers.remove(o);
+		if (observers.remove(o) && o instanceof AsyncObserver) {
+			try {
+				((AsyncObserver) o).close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 }
@@ -0,0 +1,116 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Snapshots of the animals and the map of a region manager, shared by every
+ * view and observer that needs one. A snapshot is taken at most once per
+ * animal until {@link #invalidate} says that the animals have changed, which
+ * the simulator does at the start of every step. Animals added in between only
+ * add their own snapshots, and the snapshots of the regions they did not enter
+ * are kept.
+ */
+class SnapshotCache {
+	private long _version;
+	// snapshots by ID, and the version each one was taken in
+	private AnimalInfo[] _byId;
+	private long[] _taken;
+	// snapshots of the population, in order, shared by the views frozen in the
+	// same version; a view only reads the first entries, the ones it had
+	private AnimalInfo[] _population;
+	private int _populationSize;
+	private long _populationVersion;
+	// last snapshot of the map, and the regions and their modCount it was
+	// taken from, row by row
+	private MapSnapshot _map;
+	private Region[] _mapRegions;
+	private int[] _mapModCounts;
+
+	SnapshotCache() {
+		_version = 0;
+		_byId = new AnimalInfo[0];
+		_taken = new long[0];
+		_population = new AnimalInfo[0];
+		_populationSize = 0;
+		_populationVersion = -1;
+	}
+
+	// the animals are going to change
+	void invalidate() {
+		_version++;
+		_map = null;
+	}
+
+	AnimalInfo of(Animal a) {
+		int id = a._id;
+		if (id >= _byId.length) {
+			int n = Math.max(id + 1, _byId.length * 2);
+			_byId = Arrays.copyOf(_byId, n);
+			_taken = Arrays.copyOf(_taken, n);
+		}
+		if (_byId[id] == null || _taken[id] != _version) {
+			_byId[id] = new AnimalSnapshot(a);
+			_taken[id] = _version;
+		}
+		return _byId[id];
+	}
+
+	/**
+	 * Snapshots of the animals, in order, as the first animals.size() entries
+	 * of the array returned. Between invalidations animals can only grow.
+	 */
+	AnimalInfo[] population(List<Animal> animals) {
+		int n = animals.size();
+		if (_populationVersion != _version) {
+			_population = new AnimalInfo[n];
+			_populationSize = 0;
+			_populationVersion = _version;
+		} else if (n > _population.length) {
+			// the old array stays with the views that use it
+			_population = Arrays.copyOf(_population, Math.max(n, _population.length * 2));
+		}
+		for (int i = _populationSize; i < n; i++)
+			_population[i] = of(animals.get(i));
+		_populationSize = n;
+		return _population;
+	}
+
+	MapInfo map(RegionManager rm) {
+		int cols = rm.get_cols();
+		int n = rm.get_rows() * cols;
+		if (_map != null && !changed(rm, cols, n))
+			return _map;
+		if (_mapRegions == null) {
+			_mapRegions = new Region[n];
+			_mapModCounts = new int[n];
+		}
+		RegionInfo[] regions = new RegionInfo[n];
+		for (int i = 0; i < n; i++) {
+			Region r = rm.getRegion(i / cols, i % cols);
+			if (_map != null && r == _mapRegions[i] && r.modCount == _mapModCounts[i]) {
+				regions[i] = _map.getRegion(i / cols, i % cols);
+			} else {
+				regions[i] = new RegionSnapshot(r, this);
+				_mapRegions[i] = r;
+				_mapModCounts[i] = r.modCount;
+			}
+		}
+		_map = new MapSnapshot(rm, regions);
+		return _map;
+	}
+
+	RegionInfo region(Region r) {
+		return new RegionSnapshot(r, this);
+	}
+
+	// Auxiliary methods
+	private boolean changed(RegionManager rm, int cols, int n) {
+		for (int i = 0; i < n; i++) {
+			Region r = rm.getRegion(i / cols, i % cols);
+			if (r != _mapRegions[i] || r.modCount != _mapModCounts[i])
+				return true;
+		}
+		return false;
+	}
+}
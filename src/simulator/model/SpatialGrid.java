@@ -0,0 +1,306 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import simulator.misc.Vector2D;
+
+/**
+ * Uniform bucket grid over the map used to answer sight range queries. Cells
+ * are at least as big as the largest sight range registered, so a query only
+ * has to look at the cells around the one of the animal.
+ */
+class SpatialGrid {
+	private static final int INITIAL_BUCKET_CAPACITY = 8;
+	private static final double GROWTH_FACTOR = 1.5;
+
+	private final int _width;
+	private final int _height;
+	private double _cellSize;
+	private int _cols;
+	private int _rows;
+	private Animal[][] _buckets;
+	private int[] _sizes;
+	// changes when the cells are rebuilt
+	private int _layout;
+
+	SpatialGrid(int width, int height, double cellSize) {
+		_width = width;
+		_height = height;
+		init(cellSize);
+	}
+
+	double get_cellSize() {
+		return _cellSize;
+	}
+
+	int get_layout() {
+		return _layout;
+	}
+
+	int get_numberOfCells() {
+		return _sizes.length;
+	}
+
+	int cellOf(Animal a) {
+		return cellOf(a._pos);
+	}
+
+	// rings of cells around a cell that hold every animal closer than radius
+	int ringsFor(double radius) {
+		return Math.max(1, (int) Math.ceil(radius / _cellSize));
+	}
+
+	/**
+	 * The animals of the cells at most k rings away from cell, row by row, so
+	 * that the ones in range of an animal of cell are in the same order as
+	 * {@link #forEachInRange} visits them.
+	 */
+	Animal[] block(int cell, int k) {
+		Animal[] block = new Animal[blockSize(cell, k)];
+		copyBlock(cell, k, block);
+		return block;
+	}
+
+	int blockSize(int cell, int k) {
+		int row = cell / _cols;
+		int col = cell % _cols;
+		int n = 0;
+		for (int i = Math.max(row - k, 0); i <= Math.min(row + k, _rows - 1); i++)
+			for (int j = Math.max(col - k, 0); j <= Math.min(col + k, _cols - 1); j++)
+				n += _sizes[i * _cols + j];
+		return n;
+	}
+
+	// the animals of block(cell, k) at the start of dst, which must fit them
+	void copyBlock(int cell, int k, Animal[] dst) {
+		int row = cell / _cols;
+		int col = cell % _cols;
+		int n = 0;
+		for (int i = Math.max(row - k, 0); i <= Math.min(row + k, _rows - 1); i++)
+			for (int j = Math.max(col - k, 0); j <= Math.min(col + k, _cols - 1); j++) {
+				int c = i * _cols + j;
+				System.arraycopy(_buckets[c], 0, dst, n, _sizes[c]);
+				n += _sizes[c];
+			}
+	}
+
+	// empties the grid, with cells of the given size
+	void clear(double cellSize) {
+		init(cellSize);
+	}
+
+	void add(Animal a) {
+		if (a.get_sightRange() > _cellSize)
+			rebuild(a.get_sightRange() * GROWTH_FACTOR);
+		insert(a, cellOf(a._pos));
+	}
+
+	void remove(Animal a) {
+		int cell = a._cell;
+		int slot = a._cellSlot;
+		Animal[] bucket = _buckets[cell];
+		int last = --_sizes[cell];
+		// swap-remove: the last animal of the bucket takes the freed slot
+		if (slot != last) {
+			bucket[slot] = bucket[last];
+			bucket[slot]._cellSlot = slot;
+		}
+		bucket[last] = null;
+		a._cell = -1;
+	}
+
+	void move(Animal a) {
+		int cell = cellOf(a._pos);
+		if (cell != a._cell) {
+			remove(a);
+			insert(a, cell);
+		}
+	}
+
+	/**
+	 * Calls {@code action} for every animal strictly closer than {@code radius}
+	 * to {@code a} that passes {@code filter}.
+	 */
+	void forEachInRange(Animal a, double radius, Predicate<Animal> filter, Consumer<Animal> action) {
+		double cx = a._pos.getX();
+		double cy = a._pos.getY();
+		double r2 = radius * radius;
+
+		int minCol = colOf(cx - radius);
+		int maxCol = colOf(cx + radius);
+		int minRow = rowOf(cy - radius);
+		int maxRow = rowOf(cy + radius);
+
+		for (int i = minRow; i <= maxRow; i++) {
+			for (int j = minCol; j <= maxCol; j++) {
+				int cell = i * _cols + j;
+				Animal[] bucket = _buckets[cell];
+				int n = _sizes[cell];
+				for (int k = 0; k < n; k++) {
+					Animal b = bucket[k];
+					Vector2D p = b.get_position();
+					double dx = p.getX() - cx;
+					double dy = p.getY() - cy;
+					if (dx * dx + dy * dy < r2 && filter.test(b))
+						action.accept(b);
+				}
+			}
+		}
+	}
+
+	/**
+	 * What {@code s} selects from the animals {@link #forEachInRange} would
+	 * visit, offered in the same order. The scan stops when the strategy says
+	 * the selection is final.
+	 */
+	Animal select(Animal a, double radius, Predicate<Animal> filter, SelectionStrategy s) {
+		double cx = a._pos.getX();
+		double cy = a._pos.getY();
+		double r2 = radius * radius;
+
+		int minCol = colOf(cx - radius);
+		int maxCol = colOf(cx + radius);
+		int minRow = rowOf(cy - radius);
+		int maxRow = rowOf(cy + radius);
+
+		Animal best = null;
+		for (int i = minRow; i <= maxRow; i++) {
+			for (int j = minCol; j <= maxCol; j++) {
+				int cell = i * _cols + j;
+				Animal[] bucket = _buckets[cell];
+				int n = _sizes[cell];
+				for (int k = 0; k < n; k++) {
+					Animal b = bucket[k];
+					Vector2D p = b.get_position();
+					double dx = p.getX() - cx;
+					double dy = p.getY() - cy;
+					if (dx * dx + dy * dy < r2 && filter.test(b)) {
+						best = s.reduce(a, best, b);
+						if (best != null && s.isFinal(a, best))
+							return best;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The animal closest to {@code a.get_position()} among the ones
+	 * {@link #forEachInRange} would visit, or null. Cells are searched in rings
+	 * around the one of the animal, and the search stops as soon as no cell
+	 * left can hold anything closer. Ties go to the animal visited first by
+	 * forEachInRange, so the result is the same as selecting the closest from
+	 * its list.
+	 */
+	Animal closest(Animal a, double radius, Predicate<Animal> filter) {
+		double cx = a._pos.getX();
+		double cy = a._pos.getY();
+		double r2 = radius * radius;
+		// distances are measured from the position other animals see, which
+		// during a buffered step is not where range is measured from
+		Vector2D o = a.get_position();
+		double ox = o.getX();
+		double oy = o.getY();
+		double shift = Math.sqrt((ox - cx) * (ox - cx) + (oy - cy) * (oy - cy));
+
+		int minCol = colOf(cx - radius);
+		int maxCol = colOf(cx + radius);
+		int minRow = rowOf(cy - radius);
+		int maxRow = rowOf(cy + radius);
+
+		int col = colOf(ox);
+		int row = rowOf(oy);
+		// distance from o to the border of its cell, where ring 1 starts
+		double edge = Math.min(Math.min(ox - col * _cellSize, (col + 1) * _cellSize - ox),
+				Math.min(oy - row * _cellSize, (row + 1) * _cellSize - oy));
+		edge = Math.max(edge, 0.0);
+
+		Animal best = null;
+		double bestDist = Double.POSITIVE_INFINITY;
+		int bestCell = 0;
+		int bestSlot = 0;
+		int maxRing = Math.max(Math.max(col - minCol, maxCol - col), Math.max(row - minRow, maxRow - row));
+		for (int k = 0; k <= maxRing; k++) {
+			double bound = k == 0 ? 0.0 : (k - 1) * _cellSize + edge;
+			if (bound * bound > bestDist || bound - shift >= radius)
+				break;
+			for (int i = Math.max(row - k, minRow); i <= Math.min(row + k, maxRow); i++) {
+				boolean edgeRow = i == row - k || i == row + k;
+				int step = edgeRow ? 1 : 2 * k;
+				for (int j = col - k; j <= col + k; j += step) {
+					if (j < minCol || j > maxCol)
+						continue;
+					int cell = i * _cols + j;
+					Animal[] bucket = _buckets[cell];
+					int n = _sizes[cell];
+					for (int s = 0; s < n; s++) {
+						Animal b = bucket[s];
+						Vector2D p = b.get_position();
+						double dx = p.getX() - cx;
+						double dy = p.getY() - cy;
+						if (dx * dx + dy * dy >= r2)
+							continue;
+						dx = p.getX() - ox;
+						dy = p.getY() - oy;
+						double d = dx * dx + dy * dy;
+						if (d < bestDist || (d == bestDist && (cell < bestCell || cell == bestCell && s < bestSlot))) {
+							if (filter.test(b)) {
+								best = b;
+								bestDist = d;
+								bestCell = cell;
+								bestSlot = s;
+							}
+						}
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	// Auxiliary methods
+	private void init(double cellSize) {
+		_cellSize = cellSize;
+		_layout++;
+		_cols = Math.max(1, (int) Math.ceil(_width / cellSize));
+		_rows = Math.max(1, (int) Math.ceil(_height / cellSize));
+		_buckets = new Animal[_cols * _rows][];
+		_sizes = new int[_cols * _rows];
+		for (int i = 0; i < _buckets.length; i++)
+			_buckets[i] = new Animal[INITIAL_BUCKET_CAPACITY];
+	}
+
+	private void rebuild(double cellSize) {
+		Animal[][] oldBuckets = _buckets;
+		int[] oldSizes = _sizes;
+		init(cellSize);
+		for (int i = 0; i < oldBuckets.length; i++)
+			for (int k = 0; k < oldSizes[i]; k++)
+				insert(oldBuckets[i][k], cellOf(oldBuckets[i][k]._pos));
+	}
+
+	void insert(Animal a, int cell) {
+		int n = _sizes[cell];
+		if (n == _buckets[cell].length)
+			_buckets[cell] = Arrays.copyOf(_buckets[cell], n * 2);
+		_buckets[cell][n] = a;
+		_sizes[cell] = n + 1;
+		a._cell = cell;
+		a._cellSlot = n;
+	}
+
+	private int cellOf(Vector2D p) {
+		return rowOf(p.getY()) * _cols + colOf(p.getX());
+	}
+
+	private int colOf(double x) {
+		return Math.min(Math.max((int) (x / _cellSize), 0), _cols - 1);
+	}
+
+	private int rowOf(double y) {
+		return Math.min(Math.max((int) (y / _cellSize), 0), _rows - 1);
+	}
+}
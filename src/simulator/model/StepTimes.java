@@ -0,0 +1,57 @@
+package simulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Accumulated wall-clock time spent in each phase of {@link Simulator#advance}.
+ */
+public class StepTimes {
+	public enum Phase {
+		CULL, UPDATE, REASSIGN, REGIONS, BIRTHS
+	}
+
+	private final long[] _nanos;
+	private long _steps;
+
+	public StepTimes() {
+		_nanos = new long[Phase.values().length];
+		_steps = 0;
+	}
+
+	// Adds the time elapsed since start to the phase and returns the current time
+	long record(Phase p, long start) {
+		long now = System.nanoTime();
+		_nanos[p.ordinal()] += now - start;
+		return now;
+	}
+
+	void stepDone() {
+		_steps++;
+	}
+
+	public long getSteps() {
+		return _steps;
+	}
+
+	public long getNanos(Phase p) {
+		return _nanos[p.ordinal()];
+	}
+
+	public double getAverageMillis(Phase p) {
+		return _steps == 0 ? 0.0 : _nanos[p.ordinal()] / 1e6 / _steps;
+	}
+
+	public void reset() {
+		Arrays.fill(_nanos, 0);
+		_steps = 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("steps=").append(_steps);
+		for (Phase p : Phase.values())
+			sb.append(' ').append(p.name().toLowerCase()).append('=')
+					.append(String.format("%.3fms", getAverageMillis(p)));
+		return sb.toString();
+	}
+}
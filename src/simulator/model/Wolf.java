@@ -1,6 +1,5 @@
 package simulator.model;
 
-import java.util.List;
 
 import simulator.misc.Utils;
 import simulator.misc.Vector2D;
@@ -31,8 +30,9 @@ public class Wolf extends Animal {
 	// ---------------------------- //
 	// Attributes //
 	// ---------------------------- //
-	private Animal _huntTarget;
-	private final SelectionStrategy _huntingStrategy;
+	// package-private for Checkpoint
+	long _huntTarget;
+	final SelectionStrategy _huntingStrategy;
 
 	// ---------------------------- //
 	// Constructors //
@@ -41,13 +41,13 @@ public class Wolf extends Animal {
 			throws IllegalArgumentException {
 		super("Wolf", Diet.CARNIVORE, BASE_SIGHT_RANGE, BASE_INIT_SPEED, mateStrategy, pos);
 		this._huntingStrategy = huntingStrategy;
-		this._huntTarget = null;
+		this._huntTarget = NO_HANDLE;
 	}
 
 	protected Wolf(Wolf p1, Animal p2) {
 		super(p1, p2);
 		_huntingStrategy = p1._huntingStrategy;
-		_huntTarget = null;
+		_huntTarget = NO_HANDLE;
 	}
 
 	// --------- other methods ---------//
@@ -67,95 +67,101 @@ public class Wolf extends Animal {
 
 			// 3
 			if (isOutOfBounds(get_regionManager().get_width(), get_regionManager().get_height())) {
-				_pos = _pos.adjust(get_regionManager().get_width(), get_regionManager().get_height());
+				_pos.wrap(get_regionManager().get_width(), get_regionManager().get_height());
 				_state = State.NORMAL;
 			}
 
 			// 4
-			if (get_energy() == MIN_ENERGY || get_age() > DEATH_AGE)
+			if (_energy == MIN_ENERGY || _age > DEATH_AGE)
 				die();
 
 			// 5
 			if (isAlive())
-				alterEnergy(get_energy() + get_regionManager().getFood(this, dt));
+				feed(dt);
 		}
 	}
 
 	private void updateHungerState(double dt) {
-		if (huntingTargetDiedOrWentFar())
-			findHuntingTarget();
-		if (_huntTarget == null)
+		Animal target = resolve(_huntTarget);
+		if (huntingTargetDiedOrWentFar(target))
+			target = findHuntingTarget();
+		if (target == null)
 			moveNormal(dt);
 		else
-			moveForHunt(dt);
+			moveForHunt(target, dt);
 		changeStateHunger();
 	}
 
 	private void updateMateState(double dt) {
 		mateDiedOrWentFar();
-		if (get_mateTarget() == null)
+		Animal mate = get_mateTarget();
+		if (mate == null)
 			moveNormal(dt);
 		else {
-			moveToMate(get_mateTarget(), dt);
-			reproduce();
+			moveToMate(mate, dt);
+			reproduce(mate);
 		}
 		changeStateMate();
 	}
 
-	private boolean huntingTargetDiedOrWentFar() {
-		return _huntTarget == null || !_huntTarget.isAlive() || outOfSight(_huntTarget);
+	private boolean huntingTargetDiedOrWentFar(Animal target) {
+		return target == null || !target.isSeenAlive() || outOfSight(target);
 	}
 
-	private void findHuntingTarget() {
-		List<Animal> odds = get_regionManager().getAnimalsInRange(this, a -> a.get_diet().equals(Diet.HERBIVORE));
-		_huntTarget = _huntingStrategy.select(this, odds);
+	private Animal findHuntingTarget() {
+		Animal target = get_regionManager().selectAnimalInRange(this, Diet.HERBIVORE, a -> true, _huntingStrategy);
+		_huntTarget = handleOf(target);
+		return target;
 	}
 
 	// ---------------------------- //
 	// Movements //
 	// ---------------------------- //
 	private void moveNormal(double dt) {
-		if (_pos.distanceTo(_dest) < DISTANCE_TO_OBJECTIVE) {
-			_dest = Utils.getRandomPosition(get_regionManager().get_width(), get_regionManager().get_height());
+		if (_pos.distanceSqTo(_dest) < DISTANCE_TO_OBJECTIVE * DISTANCE_TO_OBJECTIVE) {
+			setRandomDestination(get_regionManager().get_width(), get_regionManager().get_height());
 		}
 		move(calcBaseMoveSpeed(dt));
 		_age += dt;
-		alterEnergy(get_energy() - BASE_ENERGY_DECREASE_FACTOR * dt);
+		alterEnergy(_energy - BASE_ENERGY_DECREASE_FACTOR * dt);
 		alterDesire(get_desire() + BASE_DESIRE_INCREASE_FACTOR * dt);
 	}
 
-	private void moveForHunt(double dt) {
-		_dest = _huntTarget.get_position();
+	private void moveForHunt(Animal target, double dt) {
+		_dest.set(target.get_position());
 
 		move(SPEED_INCREASE_FACTOR * calcBaseMoveSpeed(dt));
-		alterEnergy(get_energy() - BASE_ENERGY_DECREASE_FACTOR * dt);
+		alterEnergy(_energy - BASE_ENERGY_DECREASE_FACTOR * dt);
 		alterDesire(get_desire() + BASE_DESIRE_INCREASE_FACTOR * dt);
-		if (_pos.distanceTo(_huntTarget.get_position()) < DISTANCE_TO_OBJECTIVE) {
-			_huntTarget.die();
-			_huntTarget = null;
-			_dest = Utils.getRandomPosition(get_regionManager().get_width(), get_regionManager().get_height());
-			_energy = Utils.constrainValueInRange(get_energy() + 50.0, MIN_ENERGY, MAX_ENERGY);
+		if (_pos.distanceSqTo(target.get_position()) < DISTANCE_TO_OBJECTIVE * DISTANCE_TO_OBJECTIVE) {
+			kill(target);
+			_huntTarget = NO_HANDLE;
+			setRandomDestination(get_regionManager().get_width(), get_regionManager().get_height());
 		}
 	}
 
+	@Override
+	protected void onKill(Animal prey) {
+		alterEnergy(_energy + 50.0);
+	}
+
 	private void moveToMate(Animal mateTarget, double dt) {
-		_dest = mateTarget.get_position();
+		_dest.set(mateTarget.get_position());
 		move(SPEED_INCREASE_FACTOR * calcBaseMoveSpeed(dt));
 		_age += dt;
-		alterEnergy(get_energy() - BASE_ENERGY_DECREASE_FACTOR * ALTERED_STATE_ENERGY_INCREASE_FACTOR * dt);
+		alterEnergy(_energy - BASE_ENERGY_DECREASE_FACTOR * ALTERED_STATE_ENERGY_INCREASE_FACTOR * dt);
 		alterDesire(get_desire() + BASE_DESIRE_INCREASE_FACTOR * dt);
 	}
 
-	private void reproduce() {
-		Animal mate = get_mateTarget();
-		if (get_position().distanceTo(mate.get_position()) < DISTANCE_TO_OBJECTIVE) {
+	private void reproduce(Animal mate) {
+		if (_pos.distanceSqTo(mate.get_position()) < DISTANCE_TO_OBJECTIVE * DISTANCE_TO_OBJECTIVE) {
 			_desire = MIN_DESIRE;
-			mate._desire = MIN_DESIRE;
-			if (Utils.randomGenerator.nextDouble() < BECOME_PREGNANT_PROBABILITY) {
+			calmMate(mate);
+			if (_random.nextDouble() < BECOME_PREGNANT_PROBABILITY) {
 				_baby = new Wolf(this, mate);
-				_energy = Utils.constrainValueInRange(get_energy() - 10.0, MIN_ENERGY, MAX_ENERGY);
+				_energy = Utils.constrainValueInRange(_energy - 10.0, MIN_ENERGY, MAX_ENERGY);
 			}
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		}
 	}
 	// ---------------------------- //
@@ -164,10 +170,10 @@ public class Wolf extends Animal {
 
 	private void changeStateNormal() {
 		if (_energy < MAX_ENERGY_TO_HUNGER) {
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 			_state = State.HUNGER;
 		} else if (_desire > MIN_DESIRE_TO_MATE) {
-			_huntTarget = null;
+			_huntTarget = NO_HANDLE;
 			_state = State.MATE;
 		}
 	}
@@ -176,25 +182,26 @@ public class Wolf extends Animal {
 		if (_energy >= MAX_ENERGY_TO_HUNGER) {
 			if (_desire < MIN_DESIRE_TO_MATE) {
 				_state = State.NORMAL;
-				_mateTarget = null;
+				_mateTarget = NO_HANDLE;
 			} else
 				_state = State.MATE;
-			_huntTarget = null;
+			_huntTarget = NO_HANDLE;
 		}
 	}
 
 	private void changeStateMate() {
 		if (_energy < MAX_ENERGY_TO_HUNGER) {
 			_state = State.HUNGER;
-			_mateTarget = null;
+			_mateTarget = NO_HANDLE;
 		} else if (_desire < MIN_DESIRE_TO_MATE) {
 			_state = State.NORMAL;
-			_mateTarget = null;
-			_huntTarget = null;
+			_mateTarget = NO_HANDLE;
+			_huntTarget = NO_HANDLE;
 		}
 	}
 
-	private void alterEnergy(double addition) {
+	@Override
+	protected void alterEnergy(double addition) {
 		_energy = Utils.constrainValueInRange(addition, MIN_ENERGY, MAX_ENERGY);
 	}
 
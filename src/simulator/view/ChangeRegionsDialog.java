@@ -13,10 +13,11 @@ import javax.swing.table.DefaultTableModel;
 import org.json.JSONObject;
 
 import simulator.control.Controller;
-import simulator.launcher.Main;
+import simulator.factories.Factory;
 import simulator.model.AnimalInfo;
 import simulator.model.EcoSysObserver;
 import simulator.model.MapInfo;
+import simulator.model.Region;
 import simulator.model.RegionInfo;
 
 public class ChangeRegionsDialog extends JDialog implements EcoSysObserver {
@@ -30,13 +31,15 @@ public class ChangeRegionsDialog extends JDialog implements EcoSysObserver {
 	private DefaultComboBoxModel<String> _toColModel;
 	private DefaultTableModel _dataTableModel;
 	private Controller _ctrl;
+	private Factory<Region> _regionFactory;
 	private List<JSONObject> _regionsInfo;
 	private String[] _headers = { "Key", "Value", "Description" };
 
 	// TODO en caso de ser necesario, añadir los atributos aquí…
-	ChangeRegionsDialog(Controller ctrl) {
+	ChangeRegionsDialog(Controller ctrl, Factory<Region> regionFactory) {
 		super((Frame) null, true);
 		_ctrl = ctrl;
+		_regionFactory = regionFactory;
 		initGUI();
 		// TODO registrar this como observer;
 	}
@@ -52,7 +55,7 @@ public class ChangeRegionsDialog extends JDialog implements EcoSysObserver {
 		// TODO crear el texto de ayuda que aparece en la parte superior del diálogo y
 		// añadirlo al panel correspondiente diálogo (Ver el apartado Figuras)
 		// _regionsInfo se usará para establecer la información en la tabla
-		_regionsInfo = Main.regionFactory.getInfo();
+		_regionsInfo = _regionFactory.getInfo();
 		// _dataTableModel es un modelo de tabla que incluye todos los parámetros de
 		// la region
 		_dataTableModel = new DefaultTableModel() {
@@ -22,12 +22,15 @@ import javax.swing.SwingUtilities;
 import org.json.JSONObject;
 
 import simulator.control.Controller;
+import simulator.factories.Factory;
+import simulator.model.Region;
 
 public class ControlPanel extends JPanel {
 
 	private static final long serialVersionUID = 1L;
 
 	private Controller ctrl;
+	private Factory<Region> regionFactory;
 	private ChangeRegionsDialog changeRegionsDialog;
 
 	private JToolBar toolBar;
@@ -47,8 +50,9 @@ public class ControlPanel extends JPanel {
 	private JLabel dtLabel;
 	private JTextField dtField;
 
-	ControlPanel(Controller ctrl) {
+	ControlPanel(Controller ctrl, Factory<Region> regionFactory) {
 		this.ctrl = ctrl;
+		this.regionFactory = regionFactory;
 		initGUI();
 	}
 
@@ -112,7 +116,7 @@ public class ControlPanel extends JPanel {
 		fc.setCurrentDirectory(new File(System.getProperty("user.dir") + "/resources/examples"));
 		// TODO Inicializar changeRegionsDialog con instancias del diálogo de cambio
 		// de regiones
-		changeRegionsDialog = new ChangeRegionsDialog(ctrl);
+		changeRegionsDialog = new ChangeRegionsDialog(ctrl, regionFactory);
 	}
 	// TODO el resto de métodos van aquí…
 
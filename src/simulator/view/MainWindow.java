@@ -13,16 +13,21 @@ import javax.swing.JToolBar;
 import javax.swing.table.DefaultTableModel;
 
 import simulator.control.Controller;
+import simulator.factories.Factory;
+import simulator.model.Region;
 
 public class MainWindow extends JFrame {
 
 	public static final long serialVersionUID = 1L;
 
 	private Controller ctrl;
+	// the regions the user can choose in the change regions dialog
+	private Factory<Region> regionFactory;
 
-	public MainWindow(Controller ctrl) {
+	public MainWindow(Controller ctrl, Factory<Region> regionFactory) {
 		super("[ECOSYSTEM SIMULATOR");
 		this.ctrl = ctrl;
+		this.regionFactory = regionFactory;
 		initGUI();
 	}
 
@@ -31,7 +36,7 @@ public class MainWindow extends JFrame {
 		setContentPane(mainPanel);
 		
 		// TODO crear ControlPanel y añadirlo en PAGE_START de mainPanel
-		ControlPanel controlPanel = new ControlPanel(ctrl);
+		ControlPanel controlPanel = new ControlPanel(ctrl, regionFactory);
 		mainPanel.add(controlPanel, BorderLayout.PAGE_START);
 		// TODO crear StatusBar y añadirlo en PAGE_END de mainPanel
 		JPanel statusBar = new JPanel();
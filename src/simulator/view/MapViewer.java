@@ -1,6 +1,6 @@
 package simulator.view;
 
-import simulator.model.Animal;
+import simulator.model.State;
 import simulator.model.AnimalInfo;
 import simulator.model.MapInfo;
 
@@ -34,7 +34,7 @@ public class MapViewer extends AbstractMapViewer {
 
 	// Mostramos sólo animales con este estado. Los posibles valores de _currState
 	// son null, y los valores deAnimal.State.values(). Si es null mostramos todo.
-	Animal.State _currState;
+	State _currState;
 
 	// En estos atributos guardamos la lista de animales y el tiempo que hemos
 	// recibido la última vez para dibujarlos.
@@ -146,7 +146,7 @@ public class MapViewer extends AbstractMapViewer {
 				continue;
 
 			// La información sobre la especie de 'a'
-			SpeciesInfo esp_info = _kindsInfo.get(a.get_genetic_code());
+			SpeciesInfo esp_info = _kindsInfo.get(a.get_geneticCode());
 
 			// TODO Si esp_info es null, añade una entrada correspondiente al mapa. Para el
 			// color usa ViewUtils.get_color(a.get_genetic_code())